@@ -0,0 +1,102 @@
+package cn.toside.music.mobile.userApi;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.whl.quickjs.android.QuickJSLoader;
+import com.whl.quickjs.wrapper.JSObject;
+import com.whl.quickjs.wrapper.QuickJSContext;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+/**
+ * On device micro benchmarks of the script native utils, they need the QuickJS native library:
+ * `./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=cn.toside.music.mobile.userApi.UserApiBenchmarkTest`
+ * Results are logged with the "UserApiBenchmark" tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class UserApiBenchmarkTest {
+  private static final int WARMUP_ROUNDS = 2;
+  private static final int SIZE = 100 * 1024;
+  private static final int ROUNDS = 20;
+
+  private static final String SCRIPT = "'use strict'\n" +
+    "globalThis.bench_json_decode = (b64, rounds) => {\n" +
+    "  let length = 0\n" +
+    "  for (let i = 0; i < rounds; i++) length += new Uint8Array(JSON.parse(b642bufJson(b64))).length\n" +
+    "  return length\n" +
+    "}\n" +
+    "globalThis.bench_binary_decode = (b64, rounds) => {\n" +
+    "  let length = 0\n" +
+    "  for (let i = 0; i < rounds; i++) length += new Uint8Array(b642buf(b64)).length\n" +
+    "  return length\n" +
+    "}\n" +
+    "globalThis.bench_js_hex = (b64, rounds) => {\n" +
+    "  const buf = new Uint8Array(b642buf(b64))\n" +
+    "  let length = 0\n" +
+    "  for (let i = 0; i < rounds; i++) length += buf.reduce((str, byte) => str + byte.toString(16).padStart(2, '0'), '').length\n" +
+    "  return length\n" +
+    "}\n" +
+    "globalThis.bench_native_hex = (b64, rounds) => {\n" +
+    "  const buf = new Uint8Array(b642buf(b64))\n" +
+    "  let length = 0\n" +
+    "  for (let i = 0; i < rounds; i++) length += buf2hex(buf.buffer).length\n" +
+    "  return length\n" +
+    "}\n";
+
+  /**
+   * The JSON number array the b642buf binding returned before it passed an ArrayBuffer
+   */
+  private static String b642bufJson(String input) {
+    byte[] byteArray = BufferUtils.b642buf(input);
+    StringBuilder jsonArrayString = new StringBuilder("[");
+    for (int i = 0; i < byteArray.length; i++) {
+      jsonArrayString.append((int) byteArray[i]);
+      if (i < byteArray.length - 1) {
+        jsonArrayString.append(",");
+      }
+    }
+    jsonArrayString.append("]");
+    return jsonArrayString.toString();
+  }
+
+  private static long run(QuickJSContext jsContext, String name, String b64) {
+    jsContext.getGlobalObject().getJSFunction(name).call(b64, WARMUP_ROUNDS);
+    long start = System.nanoTime();
+    jsContext.getGlobalObject().getJSFunction(name).call(b64, ROUNDS);
+    return (System.nanoTime() - start) / ROUNDS;
+  }
+
+  /**
+   * Decode base64 through the JSON number array binding and the ArrayBuffer binding,
+   * and encode hex in script and through the native binding, times are per call
+   */
+  @Test
+  public void bufferUtils() {
+    byte[] payload = new byte[SIZE];
+    new Random(SIZE).nextBytes(payload);
+    String b64 = BufferUtils.buf2b64(payload);
+
+    QuickJSLoader.init();
+    QuickJSContext jsContext = QuickJSContext.create();
+    try {
+      JSObject globalObject = jsContext.getGlobalObject();
+      globalObject.setProperty("b642bufJson", args -> b642bufJson((String) args[0]));
+      globalObject.setProperty("b642buf", args -> BufferUtils.b642buf((String) args[0]));
+      globalObject.setProperty("buf2hex", args -> BufferUtils.buf2hex((byte[]) args[0]));
+      jsContext.evaluate(SCRIPT);
+
+      Log.i("UserApiBenchmark", "size=" + SIZE + " rounds=" + ROUNDS +
+        " jsonDecodeTimeNs=" + run(jsContext, "bench_json_decode", b64) +
+        " binaryDecodeTimeNs=" + run(jsContext, "bench_binary_decode", b64) +
+        " jsHexTimeNs=" + run(jsContext, "bench_js_hex", b64) +
+        " nativeHexTimeNs=" + run(jsContext, "bench_native_hex", b64));
+    } finally {
+      jsContext.destroy();
+    }
+  }
+}
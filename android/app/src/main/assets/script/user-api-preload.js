@@ -12,9 +12,19 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     '__lx_native_call__set_timeout',
     '__lx_native_call__utils_str2b64',
     '__lx_native_call__utils_b642buf',
+    '__lx_native_call__utils_buf2b64',
+    '__lx_native_call__utils_buf2hex',
+    '__lx_native_call__utils_hex2buf',
     '__lx_native_call__utils_str2md5',
     '__lx_native_call__utils_aes_encrypt',
     '__lx_native_call__utils_rsa_encrypt',
+    '__lx_native_call__utils_aes_decrypt',
+    '__lx_native_call__utils_sha1',
+    '__lx_native_call__utils_sha256',
+    '__lx_native_call__utils_hmac',
+    '__lx_native_call__utils_error',
+    '__lx_native_call__http_request',
+    '__lx_native_call__http_cancel',
   ]
   const nativeFuncs = {}
   for (const name of nativeFuncNames) {
@@ -51,6 +61,11 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     CBC_128_PKCS7Padding: 'AES/CBC/PKCS7Padding',
     ECB_128_NoPadding: 'AES',
   }
+  const HMAC_ALGORITHM = {
+    md5: 'HmacMD5',
+    sha1: 'HmacSHA1',
+    sha256: 'HmacSHA256',
+  }
   const nativeCall = (action, data) => {
     data = JSON.stringify(data)
     // console.log('nativeCall', action, data)
@@ -183,6 +198,36 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
   let isInitedApi = false
   let isShowedUpdateAlert = false
 
+  const DEFAULT_HEADERS = {
+    'User-Agent': 'Mozilla/5.0 (Windows NT 10.0; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/69.0.3497.100 Safari/537.36',
+  }
+  // headers and body of a script request, used by both the native request and the app request
+  // so the request is sent the same way whichever of them runs it
+  const prepareHttpRequest = ({ method = 'get', headers = {}, body, form, formData, timeout = 13_000, binary }) => {
+    headers = Object.assign({ Accept: 'application/json' }, headers)
+    let multipartData = null
+    if (method.toLocaleLowerCase() === 'post' && !headers['Content-Type']) {
+      if (form) {
+        headers['Content-Type'] = 'application/x-www-form-urlencoded'
+        body = Object.entries(form).map(([key, value]) => `${encodeURIComponent(key)}=${encodeURIComponent(value)}`).join('&')
+      } else if (formData) {
+        // the boundary is added natively
+        multipartData = formData
+      } else {
+        headers['Content-Type'] = 'application/json'
+      }
+    }
+    if (headers['Content-Type'] === 'application/json' && body) body = JSON.stringify(body)
+    if (body != null && typeof body != 'string') body = String(body)
+    return {
+      method,
+      headers: Object.assign({}, DEFAULT_HEADERS, headers),
+      body: body ?? null,
+      formData: multipartData,
+      timeout,
+      binary,
+    }
+  }
   const sendNativeRequest = (url, options, callback) => {
     const requestKey = Math.random().toString()
     const requestInfo = {
@@ -201,7 +246,13 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
       requestInfo,
     })
 
-    nativeCall(NATIVE_EVENTS_NAMES.request, { requestKey, url, options })
+    const requestOptions = prepareHttpRequest(options)
+    // run the request natively, it goes through the app request if that is disabled
+    if (nativeFuncs.http_request(requestKey, url, JSON.stringify(requestOptions)) === true) {
+      requestInfo.abort = () => {
+        nativeFuncs.http_cancel(requestKey)
+      }
+    } else nativeCall(NATIVE_EVENTS_NAMES.request, { requestKey, url, options: requestOptions })
     return requestInfo
   }
   const handleNativeResponse = ({ requestKey, error, response }) => {
@@ -214,6 +265,20 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     else targetRequest.callback(new Error(error), null)
   }
 
+  const handleHttpResponse = ({ requestKey, error, response, binary }) => {
+    if (response) {
+      if (binary) {
+        // the shape of a Buffer sent through the app request
+        response.body = { type: 'Buffer', data: Array.from(toUint8Array(nativeFuncs.utils_b642buf(response.body), 'b642buf')) }
+      } else {
+        try {
+          response.body = JSON.parse(response.body)
+        } catch (_) {}
+      }
+    }
+    handleNativeResponse({ requestKey, error, response })
+  }
+
   const handleRequest = ({ requestKey, data }) => {
     // console.log(data)
     if (!events.request) return nativeCall(NATIVE_EVENTS_NAMES.response, { requestKey, status: false, errorMessage: 'Request event is not defined' })
@@ -274,6 +339,9 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
       case 'response':
         handleNativeResponse(data)
         return
+      case 'http_response':
+        handleHttpResponse(data)
+        return
     }
     return 'Unknown action: ' + action
   }
@@ -343,6 +411,36 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
     resolve()
   }
 
+  // bytes are passed to the native utils as ArrayBuffer
+  const toArrayBuffer = (buf) => {
+    if (buf instanceof ArrayBuffer) return buf
+    if (buf instanceof Uint8Array) {
+      return buf.byteOffset == 0 && buf.byteLength == buf.buffer.byteLength
+        ? buf.buffer
+        : buf.buffer.slice(buf.byteOffset, buf.byteOffset + buf.byteLength)
+    }
+    return new Uint8Array(buf).buffer
+  }
+  // a failed util returns null, the native error message is read back once
+  const createUtilsError = (name) => {
+    const message = nativeFuncs.utils_error()
+    return new Error(message ? name + ' failed: ' + message : name + ' failed')
+  }
+  const toUint8Array = (result, name) => {
+    if (result == null) throw createUtilsError(name)
+    return result instanceof Uint8Array ? result : new Uint8Array(result)
+  }
+  const toResultString = (result, name) => {
+    if (result == null) throw createUtilsError(name)
+    return result
+  }
+  // strings are UTF-8 encoded by the native utils
+  const toBinary = (data) => {
+    if (typeof data === 'string') return data
+    if (Array.isArray(data) || ArrayBuffer.isView(data) || data instanceof ArrayBuffer) return toArrayBuffer(data)
+    throw new Error('data type error: ' + typeof data + ' raw data: ' + data)
+  }
+
   const dataToB64 = (data) => {
     if (typeof data === 'string') return nativeFuncs.utils_str2b64(data)
     else if (Array.isArray(data) || ArrayBuffer.isView(data)) return utils.buffer.bufToString(data, 'base64')
@@ -361,6 +459,16 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
             throw new Error('Binary encoding is not supported for input strings')
         }
       },
+      aesDecrypt(buffer, mode, key, iv) {
+        switch (mode) {
+          case 'aes-128-cbc':
+            return toUint8Array(nativeFuncs.utils_aes_decrypt(toBinary(buffer), toBinary(key), toBinary(iv), AES_MODE.CBC_128_PKCS7Padding), 'aesDecrypt')
+          case 'aes-128-ecb':
+            return toUint8Array(nativeFuncs.utils_aes_decrypt(toBinary(buffer), toBinary(key), new ArrayBuffer(0), AES_MODE.ECB_128_NoPadding), 'aesDecrypt')
+          default:
+            throw new Error('Unsupported aes mode: ' + mode)
+        }
+      },
       rsaEncrypt(buffer, key) {
         // console.log('rsaEncrypt', buffer, key)
         if (typeof key !== 'string') throw new Error('Invalid RSA key')
@@ -381,6 +489,16 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
         // console.log('md5', str, md5)
         return md5
       },
+      sha1(data) {
+        return toResultString(nativeFuncs.utils_sha1(toBinary(data)), 'sha1')
+      },
+      sha256(data) {
+        return toResultString(nativeFuncs.utils_sha256(toBinary(data)), 'sha256')
+      },
+      hmac(algorithm, key, data) {
+        if (!HMAC_ALGORITHM[algorithm]) throw new Error('Unsupported hmac algorithm: ' + algorithm)
+        return toResultString(nativeFuncs.utils_hmac(HMAC_ALGORITHM[algorithm], toBinary(key), toBinary(data)), 'hmac')
+      },
     },
     buffer: {
       from(input, encoding) {
@@ -390,9 +508,9 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
             case 'binary':
               throw new Error('Binary encoding is not supported for input strings')
             case 'base64':
-              return new Uint8Array(JSON.parse(nativeFuncs.utils_b642buf(input)))
+              return toUint8Array(nativeFuncs.utils_b642buf(input), 'b642buf')
             case 'hex':
-              return new Uint8Array(input.match(/.{1,2}/g).map(byte => parseInt(byte, 16)))
+              return toUint8Array(nativeFuncs.utils_hex2buf(input), 'hex2buf')
             default:
               return new Uint8Array(stringToBytes(input))
           }
@@ -410,9 +528,9 @@ globalThis.lx_setup = (key, id, name, description, version, author, homepage, ra
               // return new TextDecoder('latin1').decode(new Uint8Array(buf))
               return buf
             case 'hex':
-              return new Uint8Array(buf).reduce((str, byte) => str + byte.toString(16).padStart(2, '0'), '')
+              return toResultString(nativeFuncs.utils_buf2hex(toArrayBuffer(buf)), 'buf2hex')
             case 'base64':
-              return nativeFuncs.utils_str2b64(bytesToString(Array.from(buf)))
+              return toResultString(nativeFuncs.utils_buf2b64(toArrayBuffer(buf)), 'buf2b64')
             case 'utf8':
             case 'utf-8':
             default:
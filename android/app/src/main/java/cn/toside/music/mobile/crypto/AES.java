@@ -23,7 +23,7 @@ public class AES {
   public static String encrypt(byte[] data, byte[] key, byte[] iv, String mode) {
     String encryptedBase64 = "";
     try {
-      Cipher cipher = Cipher.getInstance(mode);
+      Cipher cipher = CryptoCache.getCipher(mode);
       SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
       byte[] finalIvs = new byte[16];
       int len = Math.min(iv.length, 16);
@@ -41,7 +41,7 @@ public class AES {
   public static String encrypt(byte[] data, byte[] key, String mode) {
     String encryptedBase64 = "";
     try {
-      Cipher cipher = Cipher.getInstance(mode);
+      Cipher cipher = CryptoCache.getCipher(mode);
       SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
       cipher.init(Cipher.ENCRYPT_MODE, secretKeySpec);
       encryptedBase64 = encodeBase64(cipher.doFinal(data));
@@ -58,10 +58,26 @@ public class AES {
   }
 
 
+  /**
+   * @param iv empty for the modes without iv
+   */
+  public static byte[] decryptToBytes(byte[] data, byte[] key, byte[] iv, String mode) throws Exception {
+    Cipher cipher = CryptoCache.getCipher(mode);
+    SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
+    if (iv.length == 0) {
+      cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
+    } else {
+      byte[] finalIvs = new byte[16];
+      System.arraycopy(iv, 0, finalIvs, 0, Math.min(iv.length, 16));
+      cipher.init(Cipher.DECRYPT_MODE, secretKeySpec, new IvParameterSpec(finalIvs));
+    }
+    return cipher.doFinal(data);
+  }
+
   public static String decrypt(byte[] data, byte[] key, byte[] iv, String mode) {
     String decryptedString = "";
     try {
-      Cipher cipher = Cipher.getInstance(mode);
+      Cipher cipher = CryptoCache.getCipher(mode);
       SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
       byte[] finalIvs = new byte[16];
       int len = Math.min(iv.length, 16);
@@ -79,7 +95,7 @@ public class AES {
   public static String decrypt(byte[] data, byte[] key, String mode) {
     String decryptedString = "";
     try {
-      Cipher cipher = Cipher.getInstance(mode);
+      Cipher cipher = CryptoCache.getCipher(mode);
       SecretKeySpec secretKeySpec = new SecretKeySpec(key, "AES");
       cipher.init(Cipher.DECRYPT_MODE, secretKeySpec);
       decryptedString = new String(cipher.doFinal(data), StandardCharsets.UTF_8);
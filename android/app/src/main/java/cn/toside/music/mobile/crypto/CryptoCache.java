@@ -0,0 +1,86 @@
+package cn.toside.music.mobile.crypto;
+
+import android.util.Base64;
+import android.util.LruCache;
+
+import java.security.KeyFactory;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+
+/**
+ * Cipher, MessageDigest and Mac instances are not thread safe and expensive to look up, each thread keeps its own by algorithm.
+ * Parsed RSA public keys are immutable and shared by the key text.
+ */
+public class CryptoCache {
+  private static final int MAX_PUBLIC_KEY_NUM = 16;
+
+  private static final class Instances {
+    final HashMap<String, Cipher> ciphers = new HashMap<>();
+    final HashMap<String, MessageDigest> messageDigests = new HashMap<>();
+    final HashMap<String, Mac> macs = new HashMap<>();
+    KeyFactory rsaKeyFactory = null;
+  }
+
+  private static final ThreadLocal<Instances> instances = new ThreadLocal<Instances>() {
+    @Override
+    protected Instances initialValue() {
+      return new Instances();
+    }
+  };
+
+  private static final LruCache<String, PublicKey> publicKeys = new LruCache<>(MAX_PUBLIC_KEY_NUM);
+
+  /**
+   * The cipher of the thread, it must be initialized again before use
+   */
+  public static Cipher getCipher(String transformation) throws Exception {
+    HashMap<String, Cipher> ciphers = instances.get().ciphers;
+    Cipher cipher = ciphers.get(transformation);
+    if (cipher == null) {
+      cipher = Cipher.getInstance(transformation);
+      ciphers.put(transformation, cipher);
+    }
+    return cipher;
+  }
+
+  public static MessageDigest getMessageDigest(String algorithm) throws Exception {
+    HashMap<String, MessageDigest> messageDigests = instances.get().messageDigests;
+    MessageDigest messageDigest = messageDigests.get(algorithm);
+    if (messageDigest == null) {
+      messageDigest = MessageDigest.getInstance(algorithm);
+      messageDigests.put(algorithm, messageDigest);
+    } else messageDigest.reset();
+    return messageDigest;
+  }
+
+  /**
+   * The mac of the thread, it must be initialized with the key before use
+   */
+  public static Mac getMac(String algorithm) throws Exception {
+    HashMap<String, Mac> macs = instances.get().macs;
+    Mac mac = macs.get(algorithm);
+    if (mac == null) {
+      mac = Mac.getInstance(algorithm);
+      macs.put(algorithm, mac);
+    }
+    return mac;
+  }
+
+  /**
+   * @param publicKey base64 of the X.509 encoded key
+   */
+  public static PublicKey getPublicKey(String publicKey) throws Exception {
+    PublicKey key = publicKeys.get(publicKey);
+    if (key != null) return key;
+    Instances threadInstances = instances.get();
+    if (threadInstances.rsaKeyFactory == null) threadInstances.rsaKeyFactory = KeyFactory.getInstance("RSA");
+    key = threadInstances.rsaKeyFactory.generatePublic(new X509EncodedKeySpec(Base64.decode(publicKey.trim().getBytes(), Base64.DEFAULT)));
+    publicKeys.put(publicKey, key);
+    return key;
+  }
+}
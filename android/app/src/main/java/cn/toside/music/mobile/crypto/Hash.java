@@ -0,0 +1,26 @@
+package cn.toside.music.mobile.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+public class Hash {
+  /**
+   * @param algorithm MD5, SHA-1, SHA-256...
+   */
+  public static byte[] digest(String algorithm, byte[] data) throws Exception {
+    return CryptoCache.getMessageDigest(algorithm).digest(data);
+  }
+
+  // SecretKeySpec rejects an empty key, HMAC pads the key with zeros to the block size so one zero byte is the same key
+  private static final byte[] EMPTY_KEY = new byte[1];
+
+  /**
+   * @param algorithm HmacMD5, HmacSHA1, HmacSHA256...
+   * @param key may be empty
+   */
+  public static byte[] hmac(String algorithm, byte[] key, byte[] data) throws Exception {
+    Mac mac = CryptoCache.getMac(algorithm);
+    mac.init(new SecretKeySpec(key.length == 0 ? EMPTY_KEY : key, algorithm));
+    return mac.doFinal(data);
+  }
+}
@@ -8,7 +8,6 @@ import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.spec.KeySpec;
 import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
 
 import javax.crypto.Cipher;
 
@@ -70,12 +69,10 @@ public class RSA {
    public static String encryptRSAToString(String decryptedBase64, String publicKey, String padding) {
     String encryptedBase64 = "";
     try {
-      KeyFactory keyFac = KeyFactory.getInstance("RSA");
-      KeySpec keySpec = new X509EncodedKeySpec(Base64.decode(publicKey.trim().getBytes(), Base64.DEFAULT));
-      Key key = keyFac.generatePublic(keySpec);
+      Key key = CryptoCache.getPublicKey(publicKey);
 
       // get an RSA cipher object and print the provider
-      final Cipher cipher = Cipher.getInstance(padding);
+      final Cipher cipher = CryptoCache.getCipher(padding);
       // encrypt the plain text using the public key
       cipher.init(Cipher.ENCRYPT_MODE, key);
 
@@ -97,7 +94,7 @@ public class RSA {
       Key key = keyFac.generatePrivate(keySpec);
 
       // get an RSA cipher object and print the provider
-      final Cipher cipher = Cipher.getInstance(padding);
+      final Cipher cipher = CryptoCache.getCipher(padding);
       // encrypt the plain text using the public key
       cipher.init(Cipher.DECRYPT_MODE, key);
 
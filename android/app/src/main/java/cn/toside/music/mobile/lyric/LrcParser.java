@@ -0,0 +1,604 @@
+package cn.toside.music.mobile.lyric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Single pass, regex free LRC tokenizer.
+ * It produces the same lines as LyricPlayer's regex parser, but scans the chars directly
+ * and converts the time tags to milliseconds without building intermediate strings.
+ * Enhanced LRC word tags (`<mm:ss.xx>`) are removed from the text and kept as word timing.
+ * ID tags are read in the same pass while the leading header lines last.
+ */
+public class LrcParser {
+  private static final int MAX_TIME_PARTS = 3;
+
+  // parsed lines, in order of first appearance
+  private int size = 0;
+  private int[] times = new int[64];
+  private String[] texts = new String[64];
+  // extended lyrics, chained per line
+  private int[] firstExtended = new int[64];
+  private int[] lastExtended = new int[64];
+  private int extendedSize = 0;
+  private String[] extendedTexts = new String[64];
+  private int[] nextExtended = new int[64];
+  // word timing, the words of a line are stored together
+  private int[] firstWord = new int[64];
+  private int[] wordNum = new int[64];
+  private int wordSize = 0;
+  private int[] wordTimes = new int[64];
+  private int[] wordOffsets = new int[64];
+  // words of the text that was stripped last
+  private int textFirstWord = 0;
+  private int textWordNum = 0;
+
+  // time label -> line index, open addressing
+  private long[] labelKeys = new long[128];
+  private int[] labelIndexes = new int[128];
+
+  // header tags, only read until the first line that is not a tag
+  private boolean isHeader = false;
+  private String title;
+  private String artist;
+  private String album;
+  private String by;
+  private int offset = 0;
+
+  // scratch for the time label that was matched last
+  private final int[] timeParts = new int[MAX_TIME_PARTS];
+  private int timePartNum = 0;
+  private int timeMs = 0;
+  private int timeEnd = 0;
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isTimeChar(char c) {
+    return isDigit(c) || c == ':' || c == '.';
+  }
+
+  private static boolean isLetter(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  public interface CancelSignal {
+    boolean isCancelled();
+  }
+
+  static final CancelSignal NEVER_CANCELLED = () -> false;
+
+  /**
+   * Lines of a main lyric and the line index of their time labels, extended lyrics are matched against it
+   */
+  public static class MainLyric {
+    final LyricDocument document;
+    final LyricTags tags;
+    final long[] labelKeys;
+    final int[] labelIndexes;
+
+    MainLyric(LyricDocument document, LyricTags tags, long[] labelKeys, int[] labelIndexes) {
+      this.document = document;
+      this.tags = tags;
+      this.labelKeys = labelKeys;
+      this.labelIndexes = labelIndexes;
+    }
+  }
+
+  /**
+   * Texts of one extended lyric grouped by the line of the main lyric they belong to
+   */
+  public static class ExtendedLyric {
+    final int[] starts;
+    final String[] texts;
+
+    ExtendedLyric(int[] starts, String[] texts) {
+      this.starts = starts;
+      this.texts = texts;
+    }
+  }
+
+  LrcParser() {
+  }
+
+  private LrcParser(MainLyric mainLyric) {
+    size = mainLyric.document.size();
+    labelKeys = mainLyric.labelKeys;
+    labelIndexes = mainLyric.labelIndexes;
+    firstExtended = new int[size];
+    lastExtended = new int[size];
+    Arrays.fill(firstExtended, -1);
+  }
+
+  public static LyricDocument parse(String lyric, List<String> extendedLyrics) {
+    return parse(lyric, extendedLyrics, NEVER_CANCELLED);
+  }
+
+  /**
+   * @return null if cancelled
+   */
+  public static LyricDocument parse(String lyric, List<String> extendedLyrics, CancelSignal cancelSignal) {
+    MainLyric mainLyric = parseMain(lyric, cancelSignal);
+    if (mainLyric == null) return null;
+    ArrayList<ExtendedLyric> parsedExtendedLyrics = new ArrayList<>(extendedLyrics.size());
+    for (String extendedLyric : extendedLyrics) {
+      ExtendedLyric parsedExtendedLyric = parseExtended(mainLyric, extendedLyric, cancelSignal);
+      if (parsedExtendedLyric == null) return null;
+      parsedExtendedLyrics.add(parsedExtendedLyric);
+    }
+    return merge(mainLyric, parsedExtendedLyrics);
+  }
+
+  /**
+   * @return null if cancelled
+   */
+  public static MainLyric parseMain(String lyric, CancelSignal cancelSignal) {
+    LrcParser parser = new LrcParser();
+    parser.isHeader = true;
+    if (!parser.parseLyric(lyric, false, cancelSignal)) return null;
+    return parser.buildMainLyric();
+  }
+
+  /**
+   * Read only the header tags, for the regex parser
+   */
+  public static LyricTags parseTags(String lyric) {
+    LrcParser parser = new LrcParser();
+    int length = lyric.length();
+    int lineStart = 0;
+    while (lineStart < length) {
+      int lineEnd = lineStart;
+      while (lineEnd < length) {
+        char c = lyric.charAt(lineEnd);
+        if (c == '\n' || c == '\r') break;
+        lineEnd++;
+      }
+      if (!parser.parseHeaderLine(lyric, lineStart, lineEnd)) break;
+      lineStart = lineEnd + 1;
+    }
+    return parser.buildTags();
+  }
+
+  /**
+   * Match the lines of an extended lyric against the time labels of the main lyric, the main lyric is not changed
+   * @return null if cancelled
+   */
+  public static ExtendedLyric parseExtended(MainLyric mainLyric, String extendedLyric, CancelSignal cancelSignal) {
+    LrcParser parser = new LrcParser(mainLyric);
+    if (!parser.parseLyric(extendedLyric, true, cancelSignal)) return null;
+    return parser.buildExtendedLyric();
+  }
+
+  /**
+   * Document of the main lyric with the extended lyrics appended in order.
+   * The line and word arrays of the main lyric are shared, only the extended texts are copied.
+   */
+  public static LyricDocument merge(MainLyric mainLyric, List<ExtendedLyric> extendedLyrics) {
+    LyricDocument document = mainLyric.document;
+    if (extendedLyrics.isEmpty()) return document;
+    int size = document.size();
+    int extendedSize = document.getExtendedSize();
+    for (ExtendedLyric extendedLyric : extendedLyrics) extendedSize += extendedLyric.texts.length;
+
+    int[] extendedStarts = new int[size + 1];
+    String[] extendedTexts = new String[extendedSize];
+    int extendedIndex = 0;
+    for (int i = 0; i < size; i++) {
+      extendedStarts[i] = extendedIndex;
+      for (int j = 0, count = document.getExtendedCount(i); j < count; j++) extendedTexts[extendedIndex++] = document.getExtendedText(i, j);
+      for (ExtendedLyric extendedLyric : extendedLyrics) {
+        int count = extendedLyric.starts[i + 1] - extendedLyric.starts[i];
+        System.arraycopy(extendedLyric.texts, extendedLyric.starts[i], extendedTexts, extendedIndex, count);
+        extendedIndex += count;
+      }
+    }
+    extendedStarts[size] = extendedIndex;
+    return new LyricDocument(document, extendedStarts, extendedTexts);
+  }
+
+  private boolean parseLyric(String lyric, boolean isExtended, CancelSignal cancelSignal) {
+    int length = lyric.length();
+    int lineStart = 0;
+    while (lineStart < length) {
+      if (cancelSignal.isCancelled()) return false;
+      int lineEnd = lineStart;
+      while (lineEnd < length) {
+        char c = lyric.charAt(lineEnd);
+        if (c == '\n' || c == '\r') break;
+        lineEnd++;
+      }
+      parseLine(lyric, lineStart, lineEnd, isExtended);
+      if (lineEnd < length && lyric.charAt(lineEnd) == '\r' && lineEnd + 1 < length && lyric.charAt(lineEnd + 1) == '\n') lineEnd++;
+      lineStart = lineEnd + 1;
+    }
+    return true;
+  }
+
+  private void parseLine(String lyric, int start, int end, boolean isExtended) {
+    if (isHeader) {
+      if (parseHeaderLine(lyric, start, end)) return;
+      isHeader = false;
+    }
+    while (start < end && lyric.charAt(start) <= ' ') start++;
+    while (end > start && lyric.charAt(end - 1) <= ' ') end--;
+
+    // time field: one or more leading [\d:.]+ tags
+    int fieldEnd = start;
+    while (fieldEnd < end && lyric.charAt(fieldEnd) == '[') {
+      int tagEnd = fieldEnd + 1;
+      while (tagEnd < end && isTimeChar(lyric.charAt(tagEnd))) tagEnd++;
+      if (tagEnd == fieldEnd + 1 || tagEnd >= end || lyric.charAt(tagEnd) != ']') break;
+      fieldEnd = tagEnd + 1;
+    }
+    if (fieldEnd == start) return;
+
+    int textStart = fieldEnd;
+    while (textStart < end && lyric.charAt(textStart) <= ' ') textStart++;
+    if (textStart == end) return;
+    String text = stripWords(lyric, textStart, end, isExtended);
+    if (text.length() == 0) {
+      wordSize = textFirstWord;
+      return;
+    }
+
+    // word times are written for the first time label, the lines of the other labels get them shifted
+    int lineFirstWord = textFirstWord;
+    int lineWordNum = textWordNum;
+    int firstTime = 0;
+    boolean isFirstLabel = true;
+    boolean isWordsUsed = false;
+    int wordShift = 0;
+    int index = start;
+    while (index < fieldEnd) {
+      if (!isDigit(lyric.charAt(index)) || !matchTime(lyric, index, fieldEnd)) {
+        index++;
+        continue;
+      }
+      index = timeEnd;
+
+      long label = getTimeLabel();
+      int time = getTime();
+      if (isFirstLabel) {
+        firstTime = time;
+        isFirstLabel = false;
+      }
+      int lineIndex = getLineIndex(label);
+      if (lineIndex > -1) {
+        addExtendedText(lineIndex, text);
+      } else if (!isExtended) {
+        if (isWordsUsed) {
+          textFirstWord = copyWords(lineFirstWord, lineWordNum, time - firstTime - wordShift);
+        } else {
+          wordShift = time - firstTime;
+          for (int i = lineFirstWord; i < lineFirstWord + lineWordNum; i++) wordTimes[i] += wordShift;
+          textFirstWord = lineFirstWord;
+          isWordsUsed = true;
+        }
+        textWordNum = lineWordNum;
+        addLine(label, time, text);
+      }
+    }
+    // the text only became extended text, its words belong to no line
+    if (!isWordsUsed) wordSize = lineFirstWord;
+  }
+
+  /**
+   * Read the `[key:value]` tags of a header line, blank lines belong to the header as well
+   * @return false if the line is not a header line
+   */
+  private boolean parseHeaderLine(String lyric, int start, int end) {
+    while (start < end && lyric.charAt(start) <= ' ') start++;
+    while (end > start && lyric.charAt(end - 1) <= ' ') end--;
+    int index = start;
+    while (index < end) {
+      if (lyric.charAt(index) != '[') return false;
+      int keyEnd = index + 1;
+      while (keyEnd < end && isLetter(lyric.charAt(keyEnd))) keyEnd++;
+      if (keyEnd == index + 1 || keyEnd >= end || lyric.charAt(keyEnd) != ':') return false;
+      int tagEnd = lyric.indexOf(']', keyEnd);
+      if (tagEnd < 0 || tagEnd >= end) return false;
+      setTag(lyric, index + 1, keyEnd, keyEnd + 1, tagEnd);
+      index = tagEnd + 1;
+      while (index < end && lyric.charAt(index) <= ' ') index++;
+    }
+    return true;
+  }
+
+  private void setTag(String lyric, int keyStart, int keyEnd, int valueStart, int valueEnd) {
+    while (valueStart < valueEnd && lyric.charAt(valueStart) <= ' ') valueStart++;
+    while (valueEnd > valueStart && lyric.charAt(valueEnd - 1) <= ' ') valueEnd--;
+    if (valueStart == valueEnd) return;
+    int keyLength = keyEnd - keyStart;
+    if (keyLength == 2) {
+      if (lyric.startsWith("ti", keyStart)) title = lyric.substring(valueStart, valueEnd);
+      else if (lyric.startsWith("ar", keyStart)) artist = lyric.substring(valueStart, valueEnd);
+      else if (lyric.startsWith("al", keyStart)) album = lyric.substring(valueStart, valueEnd);
+      else if (lyric.startsWith("by", keyStart)) by = lyric.substring(valueStart, valueEnd);
+    } else if (keyLength == 6 && lyric.startsWith("offset", keyStart)) {
+      offset = parseOffset(lyric, valueStart, valueEnd);
+    }
+  }
+
+  /**
+   * Signed ms, 0 if it is not a number
+   */
+  private static int parseOffset(String lyric, int start, int end) {
+    boolean isNegative = false;
+    char sign = lyric.charAt(start);
+    if (sign == '-' || sign == '+') {
+      isNegative = sign == '-';
+      start++;
+    }
+    if (start == end || end - start > 9) return 0;
+    int offset = 0;
+    for (int i = start; i < end; i++) {
+      char c = lyric.charAt(i);
+      if (!isDigit(c)) return 0;
+      offset = offset * 10 + (c - '0');
+    }
+    return isNegative ? -offset : offset;
+  }
+
+  private LyricTags buildTags() {
+    return new LyricTags(title, artist, album, by, offset);
+  }
+
+  /**
+   * Remove the word time tags of the text, the word timing of the main lyric is kept
+   */
+  private String stripWords(String lyric, int start, int end, boolean isExtended) {
+    textFirstWord = wordSize;
+    textWordNum = 0;
+    int tagStart = lyric.indexOf('<', start);
+    if (tagStart < 0 || tagStart >= end) return lyric.substring(start, end);
+
+    StringBuilder text = new StringBuilder(end - start);
+    int index = start;
+    while (index < end) {
+      char c = lyric.charAt(index);
+      if (c == '<') {
+        int tagEnd = lyric.indexOf('>', index);
+        if (tagEnd > 0 && tagEnd < end && index + 1 < tagEnd && isDigit(lyric.charAt(index + 1))
+          && matchTime(lyric, index + 1, tagEnd) && timeEnd == tagEnd) {
+          if (!isExtended) addWord(getTime(), text.length());
+          index = tagEnd + 1;
+          continue;
+        }
+      }
+      text.append(c);
+      index++;
+    }
+
+    int leading = 0;
+    while (leading < text.length() && text.charAt(leading) <= ' ') leading++;
+    int length = text.length();
+    while (length > leading && text.charAt(length - 1) <= ' ') length--;
+    for (int i = textFirstWord; i < wordSize; i++) {
+      wordOffsets[i] = Math.min(Math.max(wordOffsets[i] - leading, 0), length - leading);
+    }
+    return text.substring(leading, length);
+  }
+
+  private void addWord(int time, int offset) {
+    if (wordSize == wordTimes.length) {
+      wordTimes = Arrays.copyOf(wordTimes, wordSize * 2);
+      wordOffsets = Arrays.copyOf(wordOffsets, wordSize * 2);
+    }
+    wordTimes[wordSize] = time;
+    wordOffsets[wordSize] = offset;
+    wordSize++;
+    textWordNum++;
+  }
+
+  /**
+   * Append a copy of the words with the times shifted
+   * @return index of the first copied word
+   */
+  private int copyWords(int first, int num, int shift) {
+    if (wordSize + num > wordTimes.length) {
+      int capacity = Math.max(wordTimes.length * 2, wordSize + num);
+      wordTimes = Arrays.copyOf(wordTimes, capacity);
+      wordOffsets = Arrays.copyOf(wordOffsets, capacity);
+    }
+    int start = wordSize;
+    for (int i = 0; i < num; i++) {
+      wordTimes[start + i] = wordTimes[first + i] + shift;
+      wordOffsets[start + i] = wordOffsets[first + i];
+    }
+    wordSize += num;
+    return start;
+  }
+
+  /**
+   * Same match as `\d{1,3}(:\d{1,3}){0,2}(?:\.\d{1,3})` at `start`
+   */
+  private boolean matchTime(String lyric, int start, int end) {
+    int index = start;
+    timePartNum = 0;
+    while (true) {
+      int value = 0;
+      int digitEnd = Math.min(index + 3, end);
+      int i = index;
+      for (; i < digitEnd && isDigit(lyric.charAt(i)); i++) value = value * 10 + (lyric.charAt(i) - '0');
+      if (i == index || (i < end && isDigit(lyric.charAt(i)))) return false;
+      timeParts[timePartNum++] = value;
+      index = i;
+      if (index >= end) return false;
+      char c = lyric.charAt(index);
+      if (c == '.') break;
+      if (c != ':' || timePartNum == MAX_TIME_PARTS) return false;
+      index++;
+    }
+
+    index++;
+    int digitEnd = Math.min(index + 3, end);
+    int i = index;
+    int ms = 0;
+    for (; i < digitEnd && isDigit(lyric.charAt(i)); i++) ms = ms * 10 + (lyric.charAt(i) - '0');
+    if (i == index) return false;
+    timeMs = ms;
+    timeEnd = i;
+    return true;
+  }
+
+  /**
+   * The regex parser keys lines by the time label with leading zeros stripped,
+   * so "1:2.3" and "0:1:2.3" are different lines even though they have the same time.
+   */
+  private long getTimeLabel() {
+    long label = timePartNum;
+    for (int i = 0; i < MAX_TIME_PARTS; i++) label = label * 1000 + (i < timePartNum ? timeParts[i] : 0);
+    return label * 1000 + timeMs;
+  }
+
+  private int getTime() {
+    int time = timeMs;
+    int unit = 1000;
+    for (int i = timePartNum - 1; i >= 0; i--) {
+      time += timeParts[i] * unit;
+      unit = i == timePartNum - 1 ? 60 * 1000 : 60 * 60 * 1000;
+    }
+    return time;
+  }
+
+  private void addExtendedText(int lineIndex, String text) {
+    if (extendedSize == extendedTexts.length) {
+      extendedTexts = Arrays.copyOf(extendedTexts, extendedSize * 2);
+      nextExtended = Arrays.copyOf(nextExtended, extendedSize * 2);
+    }
+    extendedTexts[extendedSize] = text;
+    nextExtended[extendedSize] = -1;
+    if (firstExtended[lineIndex] == -1) firstExtended[lineIndex] = extendedSize;
+    else nextExtended[lastExtended[lineIndex]] = extendedSize;
+    lastExtended[lineIndex] = extendedSize;
+    extendedSize++;
+  }
+
+  private int getLineIndex(long label) {
+    int mask = labelKeys.length - 1;
+    int slot = hash(label) & mask;
+    while (labelKeys[slot] != 0) {
+      if (labelKeys[slot] == label) return labelIndexes[slot];
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  private void putLineIndex(long label, int lineIndex) {
+    int mask = labelKeys.length - 1;
+    int slot = hash(label) & mask;
+    while (labelKeys[slot] != 0) slot = (slot + 1) & mask;
+    labelKeys[slot] = label;
+    labelIndexes[slot] = lineIndex;
+  }
+
+  private static int hash(long label) {
+    long h = label * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private void addLine(long label, int time, String text) {
+    if (size == times.length) {
+      int capacity = size * 2;
+      times = Arrays.copyOf(times, capacity);
+      texts = Arrays.copyOf(texts, capacity);
+      firstExtended = Arrays.copyOf(firstExtended, capacity);
+      lastExtended = Arrays.copyOf(lastExtended, capacity);
+      firstWord = Arrays.copyOf(firstWord, capacity);
+      wordNum = Arrays.copyOf(wordNum, capacity);
+    }
+    // keep the label table at most half full
+    if ((size + 1) * 2 > labelKeys.length) {
+      long[] oldKeys = labelKeys;
+      int[] oldIndexes = labelIndexes;
+      labelKeys = new long[oldKeys.length * 2];
+      labelIndexes = new int[oldKeys.length * 2];
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != 0) putLineIndex(oldKeys[i], oldIndexes[i]);
+      }
+    }
+    times[size] = time;
+    texts[size] = text;
+    firstExtended[size] = -1;
+    firstWord[size] = textFirstWord;
+    wordNum[size] = textWordNum;
+    putLineIndex(label, size);
+    size++;
+  }
+
+  /**
+   * Sort by time, lines with the same time keep their order of appearance
+   */
+  private int[] sortIndexes() {
+    int[] indexes = new int[size];
+    int[] temp = new int[size];
+    for (int i = 0; i < size; i++) indexes[i] = i;
+    for (int width = 1; width < size; width *= 2) {
+      for (int left = 0; left < size - width; left += width * 2) {
+        int mid = left + width;
+        int right = Math.min(left + width * 2, size);
+        if (times[indexes[mid - 1]] <= times[indexes[mid]]) continue;
+        int i = left, j = mid, k = left;
+        while (i < mid && j < right) temp[k++] = times[indexes[j]] < times[indexes[i]] ? indexes[j++] : indexes[i++];
+        while (i < mid) temp[k++] = indexes[i++];
+        while (j < right) temp[k++] = indexes[j++];
+        System.arraycopy(temp, left, indexes, left, right - left);
+      }
+    }
+    return indexes;
+  }
+
+  private MainLyric buildMainLyric() {
+    int[] indexes = sortIndexes();
+    int[] sortedIndexes = new int[size];
+    for (int i = 0; i < size; i++) sortedIndexes[indexes[i]] = i;
+    int[] sortedLabelIndexes = new int[labelIndexes.length];
+    for (int i = 0; i < labelKeys.length; i++) {
+      if (labelKeys[i] != 0) sortedLabelIndexes[i] = sortedIndexes[labelIndexes[i]];
+    }
+    return new MainLyric(buildDocument(indexes), buildTags(), labelKeys, sortedLabelIndexes);
+  }
+
+  private ExtendedLyric buildExtendedLyric() {
+    int[] starts = new int[size + 1];
+    String[] sortedTexts = new String[extendedSize];
+    int extendedIndex = 0;
+    for (int i = 0; i < size; i++) {
+      starts[i] = extendedIndex;
+      for (int e = firstExtended[i]; e != -1; e = nextExtended[e]) sortedTexts[extendedIndex++] = extendedTexts[e];
+    }
+    starts[size] = extendedIndex;
+    return new ExtendedLyric(starts, sortedTexts);
+  }
+
+  private LyricDocument buildDocument(int[] indexes) {
+    int[] sortedTimes = new int[size];
+    String[] sortedTexts = new String[size];
+    int[] extendedStarts = new int[size + 1];
+    String[] sortedExtendedTexts = new String[extendedSize];
+    int extendedIndex = 0;
+    int[] wordStarts = new int[size + 1];
+    int sortedWordSize = 0;
+    for (int i = 0; i < size; i++) sortedWordSize += wordNum[i];
+    int[] sortedWordTimes = new int[sortedWordSize];
+    int[] sortedWordOffsets = new int[sortedWordSize];
+    int wordIndex = 0;
+    for (int i = 0; i < size; i++) {
+      int index = indexes[i];
+      sortedTimes[i] = times[index];
+      sortedTexts[i] = texts[index];
+      extendedStarts[i] = extendedIndex;
+      for (int e = firstExtended[index]; e != -1; e = nextExtended[e]) sortedExtendedTexts[extendedIndex++] = extendedTexts[e];
+      wordStarts[i] = wordIndex;
+      System.arraycopy(wordTimes, firstWord[index], sortedWordTimes, wordIndex, wordNum[index]);
+      System.arraycopy(wordOffsets, firstWord[index], sortedWordOffsets, wordIndex, wordNum[index]);
+      wordIndex += wordNum[index];
+    }
+    extendedStarts[size] = extendedIndex;
+    wordStarts[size] = wordIndex;
+    return new LyricDocument(sortedTimes, sortedTexts, extendedStarts, sortedExtendedTexts,
+      wordStarts, sortedWordTimes, sortedWordOffsets);
+  }
+}
@@ -0,0 +1,140 @@
+package cn.toside.music.mobile.lyric;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex parser LyricPlayer used before LrcParser, it is still used when the fast parser is turned off.
+ * It has no Android dependencies so the benchmark module can compile it.
+ */
+final class LrcRegexParser {
+  static final String timeFieldExp = "^(?:\\[[\\d:.]+])+";
+  static final String timeExp = "\\d{1,3}(:\\d{1,3}){0,2}(?:\\.\\d{1,3})";
+  static final Pattern timeFieldPattern = Pattern.compile(timeFieldExp);
+  static final Pattern timePattern = Pattern.compile(timeExp);
+
+  static final String t_rxp_1 = "^0+(\\d+)";
+  static final String t_rxp_2 = ":0+(\\d+)";
+  static final String t_rxp_3 = "\\.0+(\\d+)";
+  private static String formatTimeLabel(String label) {
+    return label.replaceAll(t_rxp_1, "$1")
+      .replaceAll(t_rxp_2, ":$1")
+      .replaceAll(t_rxp_3, ".$1");
+  }
+
+  private static void parseExtendedLyric(HashMap linesMap, String extendedLyric) {
+    String[] extendedLyricLines = extendedLyric.split("\r\n|\n|\r");
+    for (String translationLine : extendedLyricLines) {
+      String line = translationLine.trim();
+      Matcher timeFieldResult = timeFieldPattern.matcher(line);
+      if (timeFieldResult.find()) {
+        String timeField = timeFieldResult.group();
+        String text = line.replaceAll(timeFieldExp, "").trim();
+        if (text.length() > 0) {
+          Matcher timeMatchResult = timePattern.matcher(timeField);
+          while (timeMatchResult.find()) {
+            String timeStr = timeMatchResult.group();
+            timeStr = formatTimeLabel(timeStr);
+            HashMap targetLine = (HashMap) linesMap.get(timeStr);
+            if (targetLine != null) ((ArrayList<String>) targetLine.get("extendedLyrics")).add(text);
+          }
+        }
+      }
+    }
+  }
+
+  static LyricDocument parse(String lyric, ArrayList<String> extendedLyrics, LrcParser.CancelSignal cancelSignal) {
+    String[] linesStr = lyric.split("\r\n|\n|\r");
+    List<HashMap> lines = new ArrayList<>();
+
+    HashMap linesMap = new HashMap<String, HashMap>();
+    HashMap timeMap = new HashMap<String, Integer>();
+
+    for (String lineStr : linesStr) {
+      if (cancelSignal.isCancelled()) return null;
+      String line = lineStr.trim();
+      Matcher timeFieldResult = timeFieldPattern.matcher(line);
+      if (timeFieldResult.find()) {
+        String timeField = timeFieldResult.group();
+        String text = line.replaceAll(timeFieldExp, "").trim();
+        if (text.length() > 0) {
+          Matcher timeMatchResult = timePattern.matcher(timeField);
+          while (timeMatchResult.find()) {
+            String timeStr = formatTimeLabel(timeMatchResult.group());
+            if (linesMap.containsKey(timeStr)) {
+              ((ArrayList<String>) ((HashMap) linesMap.get(timeStr)).get("extendedLyrics")).add(text);
+              continue;
+            }
+            String[] timeArr = timeStr.split(":");
+            String hours;
+            String minutes;
+            String seconds;
+            String milliseconds = "0";
+            switch (timeArr.length) {
+              case 3:
+                hours = timeArr[0];
+                minutes = timeArr[1];
+                seconds = timeArr[2];
+                break;
+              case 2:
+                hours = "0";
+                minutes = timeArr[0];
+                seconds = timeArr[1];
+                break;
+              case 1:
+                hours = "0";
+                minutes = "0";
+                seconds = timeArr[0];
+                break;
+              default:
+                continue;
+            }
+            if (seconds.contains(".")) {
+              timeArr = seconds.split("\\.");
+              seconds = timeArr[0];
+              if (timeArr.length > 1) milliseconds = timeArr[1];
+            }
+            HashMap<String, Object> lineInfo = new HashMap<>();
+            int time = Integer.parseInt(hours) * 60 * 60 * 1000
+              + Integer.parseInt(minutes) * 60 * 1000
+              + Integer.parseInt(seconds) * 1000
+              + Integer.parseInt(milliseconds);
+            lineInfo.put("time", time);
+            lineInfo.put("text", text);
+            lineInfo.put("extendedLyrics", new ArrayList<String>(extendedLyrics.size()));
+            timeMap.put(timeStr, time);
+            linesMap.put(timeStr, lineInfo);
+          }
+        }
+      }
+    }
+
+    for (String extendedLyric : extendedLyrics) {
+      parseExtendedLyric(linesMap, extendedLyric);
+    }
+
+    Set<Entry<String, Integer>> set = timeMap.entrySet();
+    List<Entry<String, Integer>> list = new ArrayList<Entry<String, Integer>>(set);
+    Collections.sort(list, new Comparator<Entry<String, Integer>>() {
+      public int compare(Map.Entry<String, Integer> o1,
+                         Map.Entry<String, Integer> o2) {
+        return o1.getValue().compareTo(o2.getValue());
+      }
+    });
+
+    // lines = new ArrayList<HashMap>(list.size());
+    for (Entry<String, Integer> entry : list) {
+      lines.add((HashMap) linesMap.get(entry.getKey()));
+    }
+
+    return LyricDocument.fromLines(lines);
+  }
+}
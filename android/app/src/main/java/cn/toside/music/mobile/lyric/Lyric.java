@@ -7,33 +7,36 @@ import android.content.IntentFilter;
 import android.os.Bundle;
 import android.util.Log;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.WritableMap;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
 public class Lyric extends LyricPlayer {
   LyricView lyricView = null;
   LyricEvent lyricEvent = null;
+  LyricEventSender lyricEventSender = null;
+  int eventLookaheadLineNum = 0;
   ReactApplicationContext reactAppContext;
 
   boolean isRunPlayer = false;
   // String lastText = "LX Music ^-^";
   int lastLine = 0;
-  List lines = new ArrayList();
   boolean isShowTranslation;
   boolean isShowRoma;
   boolean isShowLyricView = false;
   boolean isSendLyricTextEvent = false;
-  boolean isScreenOff = false;
+  boolean isUseLayerRenderer = false;
+  boolean isUseScrollPanel = false;
+  boolean isGlyphWarmupEnabled = false;
   String lyricText = "";
   String translationText = "";
   String romaLyricText = "";
+  BroadcastReceiver screenOnOffReceiver = null;
+  final LyricPowerPolicy powerPolicy = new LyricPowerPolicy(this::handleSuspendedChange);
 
   Lyric(ReactApplicationContext reactContext, boolean isShowTranslation, boolean isShowRoma, float playbackRate) {
     this.reactAppContext = reactContext;
@@ -50,7 +53,7 @@ public class Lyric extends LyricPlayer {
     theFilter.addAction(Intent.ACTION_SCREEN_ON);
     theFilter.addAction(Intent.ACTION_SCREEN_OFF);
 
-    BroadcastReceiver screenOnOffReceiver = new BroadcastReceiver() {
+    screenOnOffReceiver = new BroadcastReceiver() {
       @Override
       public void onReceive(Context context, Intent intent) {
         String strAction = intent.getAction();
@@ -107,19 +110,43 @@ public class Lyric extends LyricPlayer {
     return !isRunPlayer || isSendLyricTextEvent;
   }
   private void handleScreenOff() {
-    isScreenOff = true;
-    if (isDisableAutoPause()) return;
-    setTempPause(true);
+    powerPolicy.setReason(LyricPowerPolicy.REASON_SCREEN_OFF, true);
   }
 
   private void handleScreenOn() {
-    isScreenOff = false;
-    if (isDisableAutoPause()) return;
-    if (lyricView == null) lyricView = new LyricView(reactAppContext, lyricEvent);
-    lyricView.runOnUiThread(() -> {
-      handleGetCurrentLyric(lastLine);
-      setTempPause(false);
-    });
+    powerPolicy.setReason(LyricPowerPolicy.REASON_SCREEN_OFF, false);
+  }
+
+  /**
+   * The line timer only keeps running while suspended if lyric text events are sent
+   */
+  private void updateTempPause() {
+    setTempPause(powerPolicy.isTimerSuspended() && !isDisableAutoPause());
+  }
+
+  private void handleSuspendedChange(boolean isSuspended) {
+    LyricView view = lyricView;
+    // the screen receiver calls this on the main thread, the view and its frame callbacks belong to the module thread
+    Runnable change = isSuspended ? () -> {
+      if (!powerPolicy.isSuspended()) return;
+      if (lyricView != null) lyricView.setRenderSuspended(true);
+      updateTempPause();
+    } : () -> {
+      if (powerPolicy.isSuspended()) return;
+      if (lyricView != null) lyricView.setRenderSuspended(false);
+      // the timer resyncs to the play time by itself, the view missed the lines while suspended
+      if (isRunPlayer) handleGetCurrentLyric(lastLine);
+      updateTempPause();
+    };
+    if (view == null) change.run();
+    else view.runOnUiThread(change);
+  }
+
+  private void createLyricView() {
+    lyricView = new LyricView(reactAppContext, lyricEvent, this::getPlayTime, powerPolicy);
+    lyricView.setUseLayerRenderer(isUseLayerRenderer);
+    lyricView.setUseScrollPanel(isUseScrollPanel);
+    lyricView.setGlyphWarmupEnabled(isGlyphWarmupEnabled);
   }
 
   private void pausePlayer() {
@@ -128,27 +155,25 @@ public class Lyric extends LyricPlayer {
     this.pause();
   }
 
-  private void setCurrentLyric(String lyric, ArrayList<String> extendedLyrics) {
-    if (isShowLyricView && !isScreenOff && lyricView != null) {
-      lyricView.setLyric(lyric, extendedLyrics);
+  private void setCurrentLyric(int lineNum, String lyric, List<String> extendedLyrics) {
+    boolean isEmptyLine = lyric.isEmpty() && extendedLyrics.isEmpty();
+    if (!isEmptyLine) powerPolicy.setReason(LyricPowerPolicy.REASON_EMPTY_LINE, false);
+    if (isShowLyricView && !powerPolicy.isSuspended() && lyricView != null) {
+      lyricView.setLyric(lyric, extendedLyrics, document, lineNum);
     }
+    // the empty line is drawn once, rendering stops until a line with text
+    if (isEmptyLine && isShowLyricView) powerPolicy.setReason(LyricPowerPolicy.REASON_EMPTY_LINE, true);
     if (isSendLyricTextEvent) {
-      WritableMap params = Arguments.createMap();
-      params.putString("text", lyric);
-      params.putArray("extendedLyrics", Arguments.makeNativeArray(extendedLyrics));
-      lyricEvent.sendEvent(lyricEvent.LYRIC_Line_PLAY, params);
+      lyricEventSender.sendLine(lineNum < 0 ? null : document, lineNum, lyric, extendedLyrics, getPlayTime(), playbackRate);
     }
   }
   private void handleGetCurrentLyric(int lineNum) {
     lastLine = lineNum;
-    if (lineNum >= 0 && lineNum < lines.size()) {
-      HashMap line = (HashMap) lines.get(lineNum);
-      if (line != null) {
-        setCurrentLyric((String) line.get("text"), (ArrayList<String>) line.get("extendedLyrics"));
-        return;
-      }
+    if (lineNum >= 0 && lineNum < document.size()) {
+      setCurrentLyric(lineNum, document.getText(lineNum), document.getExtendedLyrics(lineNum));
+      return;
     }
-    setCurrentLyric("", new ArrayList<>(0));
+    setCurrentLyric(-1, "", Collections.emptyList());
   }
 
   public void setSendLyricTextEvent(boolean isSend) {
@@ -156,17 +181,22 @@ public class Lyric extends LyricPlayer {
     isSendLyricTextEvent = isSend;
     if (isSend) {
       if (lyricEvent == null) lyricEvent = new LyricEvent(reactAppContext);
+      lyricEventSender = new LyricEventSender(lyricEvent);
+      lyricEventSender.setLookaheadLineNum(eventLookaheadLineNum);
       isRunPlayer = true;
     } else {
+      lyricEventSender.release();
+      lyricEventSender = null;
       pausePlayer();
     }
+    updateTempPause();
   }
 
   public void showDesktopLyric(Bundle options, Promise promise) {
     if (isShowLyricView) return;
     if (lyricEvent == null) lyricEvent = new LyricEvent(reactAppContext);
     isShowLyricView = true;
-    if (lyricView == null) lyricView = new LyricView(reactAppContext, lyricEvent);
+    if (lyricView == null) createLyricView();
     try {
       lyricView.showLyricView(options);
     } catch (Exception e) {
@@ -175,17 +205,51 @@ public class Lyric extends LyricPlayer {
       return;
     }
     isRunPlayer = true;
+    updateTempPause();
     promise.resolve(null);
   }
 
   public void hideDesktopLyric() {
     if (!isShowLyricView) return;
     isShowLyricView = false;
+    powerPolicy.setReason(LyricPowerPolicy.REASON_EMPTY_LINE, false);
     pausePlayer();
     if (lyricView != null) {
       lyricView.destroy();
       lyricView = null;
     }
+    updateTempPause();
+  }
+
+  @Override
+  public void release() {
+    hideDesktopLyric();
+    if (lyricEventSender != null) {
+      lyricEventSender.release();
+      lyricEventSender = null;
+    }
+    if (screenOnOffReceiver != null) {
+      reactAppContext.unregisterReceiver(screenOnOffReceiver);
+      screenOnOffReceiver = null;
+    }
+    super.release();
+  }
+
+  /**
+   * @param lineNum number of following lines sent with each lyric line event
+   */
+  public void setEventLookaheadLineNum(int lineNum) {
+    eventLookaheadLineNum = lineNum;
+    if (lyricEventSender == null) return;
+    lyricEventSender.setLookaheadLineNum(lineNum);
+  }
+
+  public LyricEventSender getLyricEventSender() {
+    return lyricEventSender;
+  }
+
+  public LyricPowerPolicy getPowerPolicy() {
+    return powerPolicy;
   }
 
   private void refreshLyric() {
@@ -204,15 +268,19 @@ public class Lyric extends LyricPlayer {
   }
 
   @Override
-  public void onSetLyric(List lines) {
-    this.lines = lines;
+  public void onSetLyric(LyricDocument document) {
     handleGetCurrentLyric(-1);
-    // for (int i = 0; i < lines.size(); i++) {
-    //   HashMap line = (HashMap) lines.get(i);
-    //   Log.d("Lyric", "onSetLyric: " +(String) line.get("text") + " " + line.get("extendedLyrics"));
+    // for (int i = 0; i < document.size(); i++) {
+    //   Log.d("Lyric", "onSetLyric: " + document.getText(i) + " " + document.getExtendedLyrics(i));
     // }
   }
 
+  @Override
+  public void play(int curTime) {
+    super.play(curTime);
+    if (lyricEventSender != null) lyricEventSender.invalidate();
+  }
+
   @Override
   public void onPlay(int lineNum) {
     handleGetCurrentLyric(lineNum);
@@ -270,6 +338,24 @@ public class Lyric extends LyricPlayer {
     lyricView.setColor(unplayColor, playedColor, shadowColor);
   }
 
+  public void setUseLayerRenderer(boolean isUseLayerRenderer) {
+    this.isUseLayerRenderer = isUseLayerRenderer;
+    if (lyricView == null) return;
+    lyricView.setUseLayerRenderer(isUseLayerRenderer);
+  }
+
+  public void setUseScrollPanel(boolean isUseScrollPanel) {
+    this.isUseScrollPanel = isUseScrollPanel;
+    if (lyricView == null) return;
+    lyricView.setUseScrollPanel(isUseScrollPanel);
+  }
+
+  public void setGlyphWarmupEnabled(boolean isEnabled) {
+    this.isGlyphWarmupEnabled = isEnabled;
+    if (lyricView == null) return;
+    lyricView.setGlyphWarmupEnabled(isEnabled);
+  }
+
   public void setAlpha(float alpha) {
     if (lyricView == null) return;
     lyricView.setAlpha(alpha);
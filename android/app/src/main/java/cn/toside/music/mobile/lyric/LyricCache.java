@@ -0,0 +1,112 @@
+package cn.toside.music.mobile.lyric;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU of parsed lyrics keyed by a 64 bit hash of the lyric texts, bounded by the estimated memory size of the documents
+ */
+public class LyricCache {
+  private static final int DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  public static final LyricCache shared = new LyricCache(DEFAULT_MAX_SIZE);
+
+  private final LinkedHashMap<Long, LyricPlayer.ParsedLyric> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private final int maxSize;
+  private int size = 0;
+
+  private int hitCount = 0;
+  private int missCount = 0;
+  private int evictionCount = 0;
+
+  LyricCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  private static long hash(long hash, String text) {
+    for (int i = 0, length = text.length(); i < length; i++) {
+      hash ^= text.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    // separate the texts, so moving chars between them changes the key
+    hash ^= 0x10000 | (text.length() & 0xffff);
+    return hash * FNV_PRIME;
+  }
+
+  /**
+   * FNV-1a of the main lyric and the parser that produces the document
+   */
+  public static long getKey(String lyric, boolean isUseFastParser) {
+    return hash(isUseFastParser ? FNV_OFFSET : ~FNV_OFFSET, lyric);
+  }
+
+  /**
+   * Key of the main lyric continued with the extended lyrics
+   */
+  public static long getKey(long lyricKey, List<String> extendedLyrics) {
+    long key = lyricKey;
+    for (String extendedLyric : extendedLyrics) key = hash(key, extendedLyric);
+    return key;
+  }
+
+  public synchronized LyricPlayer.ParsedLyric get(long key) {
+    LyricPlayer.ParsedLyric parsedLyric = entries.get(key);
+    if (parsedLyric == null) missCount++;
+    else hitCount++;
+    return parsedLyric;
+  }
+
+  public synchronized void put(long key, LyricPlayer.ParsedLyric parsedLyric) {
+    int entrySize = parsedLyric.getMemorySize();
+    if (entrySize > maxSize) return;
+    LyricPlayer.ParsedLyric previous = entries.put(key, parsedLyric);
+    if (previous != null) size -= previous.getMemorySize();
+    size += entrySize;
+
+    Iterator<Map.Entry<Long, LyricPlayer.ParsedLyric>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      size -= iterator.next().getValue().getMemorySize();
+      iterator.remove();
+      evictionCount++;
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    size = 0;
+  }
+
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  public synchronized int getEvictionCount() {
+    return evictionCount;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  public synchronized int getSize() {
+    return size;
+  }
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public synchronized void resetStats() {
+    hitCount = 0;
+    missCount = 0;
+    evictionCount = 0;
+  }
+}
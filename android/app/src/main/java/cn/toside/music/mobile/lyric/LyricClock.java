@@ -0,0 +1,191 @@
+package cn.toside.music.mobile.lyric;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Lyric line timer.
+ * Every tick computes the play time from SystemClock.uptimeMillis and finds the active line,
+ * so a late tick never accumulates drift. The next tick is scheduled at the absolute time of the next line.
+ * Ticks can run on a background thread, only line changes are posted to the thread that created the clock.
+ */
+public class LyricClock {
+  // ticks later than this are counted as late
+  private static final int LATE_TICK_THRESHOLD = 16;
+
+  public interface Callback {
+    void onLineChange(int lineNum);
+  }
+
+  private final Callback callback;
+  private final Handler callbackHandler;
+  private final Handler tickHandler;
+  private final HandlerThread tickThread;
+  private final Runnable tickRunnable = this::tick;
+  private final Runnable lineChangeRunnable = this::dispatchLineChange;
+
+  private LyricDocument document = LyricDocument.EMPTY;
+  private long performanceTime = 0;
+  private int startPlayTime = 0;
+  private float playbackRate = 1;
+  private int lineNum = -1;
+  private long scheduledTime = 0;
+  private boolean isRunning = false;
+  private boolean isSuspended = false;
+  // changed on the callback thread only, line changes of an old generation are dropped
+  private volatile int generation = 0;
+  // generation << 32 | line num
+  private volatile long pendingLineChange = 0;
+
+  private int tickCount = 0;
+  private int lateTickCount = 0;
+  private long totalDriftTime = 0;
+  private long maxDriftTime = 0;
+
+  LyricClock(Callback callback, boolean isUseBackgroundThread) {
+    this.callback = callback;
+    callbackHandler = new Handler(Looper.myLooper());
+    if (isUseBackgroundThread) {
+      tickThread = new HandlerThread("LyricClock");
+      tickThread.start();
+      tickHandler = new Handler(tickThread.getLooper());
+    } else {
+      tickThread = null;
+      tickHandler = callbackHandler;
+    }
+  }
+
+  private static long getNow() {
+    return SystemClock.uptimeMillis();
+  }
+
+  private int getTime(long now) {
+    return (int)((now - performanceTime) * playbackRate) + startPlayTime;
+  }
+
+  public synchronized int getCurrentTime() {
+    return getTime(getNow());
+  }
+
+  /**
+   * Start ticking, the play time is `startPlayTime + offset` at this moment
+   */
+  public synchronized void start(LyricDocument document, int startPlayTime, int offset, float playbackRate) {
+    stop();
+    this.document = document;
+    this.startPlayTime = startPlayTime;
+    this.playbackRate = playbackRate;
+    performanceTime = getNow() - offset;
+    lineNum = -1;
+    scheduledTime = 0;
+    isRunning = true;
+    if (!isSuspended) tickHandler.post(tickRunnable);
+  }
+
+  /**
+   * Swap in a document with the same line times, the current line and the scheduled tick stay valid
+   */
+  public synchronized void setDocument(LyricDocument document) {
+    this.document = document;
+  }
+
+  public synchronized void stop() {
+    generation++;
+    isRunning = false;
+    tickHandler.removeCallbacks(tickRunnable);
+    callbackHandler.removeCallbacks(lineChangeRunnable);
+  }
+
+  /**
+   * Stop ticking without stopping the clock, resuming resyncs to the current play time
+   */
+  public synchronized void setSuspended(boolean isSuspended) {
+    if (this.isSuspended == isSuspended) return;
+    this.isSuspended = isSuspended;
+    if (!isRunning) return;
+    if (isSuspended) {
+      tickHandler.removeCallbacks(tickRunnable);
+    } else {
+      scheduledTime = 0;
+      tickHandler.post(tickRunnable);
+    }
+  }
+
+  public synchronized boolean isSuspended() {
+    return isSuspended;
+  }
+
+  private synchronized void tick() {
+    if (!isRunning || isSuspended) return;
+    long now = getNow();
+    if (scheduledTime > 0) recordDrift(now - scheduledTime);
+
+    int curLineNum = document.findLineNum(getTime(now), lineNum < 0 ? 0 : lineNum);
+    if (curLineNum != lineNum) {
+      lineNum = curLineNum;
+      postLineChange(curLineNum);
+    }
+    if (curLineNum >= document.size() - 1) {
+      isRunning = false;
+      return;
+    }
+
+    // the line search treats every time <= 0 as line 0
+    int nextLineTime = Math.max(document.getTime(curLineNum + 1), 1);
+    scheduledTime = performanceTime + (long) Math.ceil((nextLineTime - startPlayTime) / playbackRate);
+    tickHandler.postAtTime(tickRunnable, scheduledTime);
+  }
+
+  private void postLineChange(int lineNum) {
+    pendingLineChange = ((long) generation << 32) | (lineNum & 0xffffffffL);
+    if (tickHandler == callbackHandler) {
+      dispatchLineChange();
+      return;
+    }
+    callbackHandler.removeCallbacks(lineChangeRunnable);
+    callbackHandler.post(lineChangeRunnable);
+  }
+
+  private void dispatchLineChange() {
+    long lineChange = pendingLineChange;
+    if ((int)(lineChange >>> 32) != generation) return;
+    callback.onLineChange((int) lineChange);
+  }
+
+  private void recordDrift(long driftTime) {
+    tickCount++;
+    totalDriftTime += driftTime;
+    if (driftTime > maxDriftTime) maxDriftTime = driftTime;
+    if (driftTime > LATE_TICK_THRESHOLD) lateTickCount++;
+  }
+
+  public synchronized int getTickCount() {
+    return tickCount;
+  }
+
+  public synchronized int getLateTickCount() {
+    return lateTickCount;
+  }
+
+  public synchronized double getAverageDriftTime() {
+    return tickCount == 0 ? 0 : (double) totalDriftTime / tickCount;
+  }
+
+  public synchronized long getMaxDriftTime() {
+    return maxDriftTime;
+  }
+
+  public synchronized void resetDriftStats() {
+    tickCount = 0;
+    lateTickCount = 0;
+    totalDriftTime = 0;
+    maxDriftTime = 0;
+  }
+
+  public void release() {
+    stop();
+    if (tickThread != null) tickThread.quit();
+  }
+}
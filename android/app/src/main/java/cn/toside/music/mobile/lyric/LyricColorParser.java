@@ -0,0 +1,200 @@
+package cn.toside.music.mobile.lyric;
+
+import android.graphics.Color;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses the css colors of the desktop lyric setting into ARGB ints, recently used colors are cached.
+ * Supports #rgb, #rgba, #rrggbb, #rrggbbaa, rgb(), rgba(), hsl() and hsla() with number or percentage alpha,
+ * anything else is black.
+ */
+public class LyricColorParser {
+  private static final int MAX_ENTRY_NUM = 16;
+  static final int DEFAULT_COLOR = Color.BLACK;
+
+  public static final LyricColorParser shared = new LyricColorParser();
+
+  private final LinkedHashMap<String, Integer> entries = new LinkedHashMap<String, Integer>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+      return size() > MAX_ENTRY_NUM;
+    }
+  };
+
+  public synchronized int parse(String input) {
+    if (input == null) return DEFAULT_COLOR;
+    Integer color = entries.get(input);
+    if (color != null) return color;
+    color = new Reader(input).readColor();
+    entries.put(input, color);
+    return color;
+  }
+
+  private static class Reader {
+    private final String input;
+    private int pos = 0;
+    private final int end;
+    // value and type of the last readNumber
+    private float number;
+    private boolean isPercent;
+
+    Reader(String input) {
+      this.input = input;
+      int start = 0;
+      int end = input.length();
+      while (start < end && input.charAt(start) <= ' ') start++;
+      while (end > start && input.charAt(end - 1) <= ' ') end--;
+      this.pos = start;
+      this.end = end;
+    }
+
+    int readColor() {
+      if (pos == end) return DEFAULT_COLOR;
+      try {
+        if (input.charAt(pos) == '#') return readHex();
+        if (readName("rgba") || readName("rgb")) return readRgb();
+        if (readName("hsla") || readName("hsl")) return readHsl();
+      } catch (IllegalArgumentException ignored) {}
+      return DEFAULT_COLOR;
+    }
+
+    private int readHex() {
+      int length = end - pos - 1;
+      int value = 0;
+      for (int i = pos + 1; i < end; i++) {
+        int digit = Character.digit(input.charAt(i), 16);
+        if (digit < 0) throw new IllegalArgumentException();
+        value = (value << 4) | digit;
+      }
+      switch (length) {
+        case 3:
+          return Color.argb(255, ((value >> 8) & 0xF) * 0x11, ((value >> 4) & 0xF) * 0x11, (value & 0xF) * 0x11);
+        case 4:
+          return Color.argb((value & 0xF) * 0x11, ((value >> 12) & 0xF) * 0x11, ((value >> 8) & 0xF) * 0x11, ((value >> 4) & 0xF) * 0x11);
+        case 6:
+          return 0xFF000000 | value;
+        case 8:
+          // css order, alpha is the last byte
+          return (value >>> 8) | (value << 24);
+        default:
+          throw new IllegalArgumentException();
+      }
+    }
+
+    private int readRgb() {
+      readChar('(');
+      int[] rgb = new int[3];
+      for (int i = 0; i < 3; i++) {
+        if (i > 0) readSeparator();
+        readNumber();
+        rgb[i] = clamp(Math.round(isPercent ? number * 2.55f : number), 255);
+      }
+      int alpha = readAlpha();
+      return Color.argb(alpha, rgb[0], rgb[1], rgb[2]);
+    }
+
+    private int readHsl() {
+      readChar('(');
+      readNumber();
+      if (isPercent) throw new IllegalArgumentException();
+      float hue = number;
+      readName("deg");
+      readSeparator();
+      readNumber();
+      float saturation = clamp(number, 100) / 100;
+      readSeparator();
+      readNumber();
+      float lightness = clamp(number, 100) / 100;
+      int alpha = readAlpha();
+
+      hue = ((hue % 360) + 360) % 360 / 60;
+      float chroma = (1 - Math.abs(2 * lightness - 1)) * saturation;
+      float x = chroma * (1 - Math.abs(hue % 2 - 1));
+      float m = lightness - chroma / 2;
+      float r, g, b;
+      switch ((int) hue) {
+        case 0: r = chroma; g = x; b = 0; break;
+        case 1: r = x; g = chroma; b = 0; break;
+        case 2: r = 0; g = chroma; b = x; break;
+        case 3: r = 0; g = x; b = chroma; break;
+        case 4: r = x; g = 0; b = chroma; break;
+        default: r = chroma; g = 0; b = x; break;
+      }
+      return Color.argb(alpha, Math.round((r + m) * 255), Math.round((g + m) * 255), Math.round((b + m) * 255));
+    }
+
+    /**
+     * Optional alpha after a comma or a slash, then the closing bracket
+     */
+    private int readAlpha() {
+      skipSpace();
+      int alpha = 255;
+      if (pos < end && (input.charAt(pos) == ',' || input.charAt(pos) == '/')) {
+        pos++;
+        readNumber();
+        alpha = clamp(Math.round((isPercent ? number / 100 : number) * 255), 255);
+      }
+      readChar(')');
+      if (pos != end) throw new IllegalArgumentException();
+      return alpha;
+    }
+
+    private void readSeparator() {
+      skipSpace();
+      if (pos < end && input.charAt(pos) == ',') pos++;
+    }
+
+    private void readNumber() {
+      skipSpace();
+      int start = pos;
+      if (pos < end && (input.charAt(pos) == '-' || input.charAt(pos) == '+')) pos++;
+      int digitStart = pos;
+      long value = 0;
+      while (pos < end && isDigit(input.charAt(pos))) value = value * 10 + (input.charAt(pos++) - '0');
+      float result = value;
+      if (pos < end && input.charAt(pos) == '.') {
+        pos++;
+        float scale = 0.1f;
+        while (pos < end && isDigit(input.charAt(pos))) {
+          result += (input.charAt(pos++) - '0') * scale;
+          scale /= 10;
+        }
+      }
+      if (pos == digitStart || (pos == digitStart + 1 && input.charAt(digitStart) == '.')) throw new IllegalArgumentException();
+      number = input.charAt(start) == '-' ? -result : result;
+      isPercent = pos < end && input.charAt(pos) == '%';
+      if (isPercent) pos++;
+    }
+
+    private boolean readName(String name) {
+      if (!input.regionMatches(true, pos, name, 0, name.length())) return false;
+      pos += name.length();
+      return true;
+    }
+
+    private void readChar(char c) {
+      skipSpace();
+      if (pos >= end || input.charAt(pos) != c) throw new IllegalArgumentException();
+      pos++;
+      skipSpace();
+    }
+
+    private void skipSpace() {
+      while (pos < end && input.charAt(pos) == ' ') pos++;
+    }
+
+    private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+    }
+
+    private static int clamp(int value, int max) {
+      return value < 0 ? 0 : Math.min(value, max);
+    }
+
+    private static float clamp(float value, float max) {
+      return value < 0 ? 0 : Math.min(value, max);
+    }
+  }
+}
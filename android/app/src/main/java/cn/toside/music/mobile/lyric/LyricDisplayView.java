@@ -0,0 +1,59 @@
+package cn.toside.music.mobile.lyric;
+
+import android.text.TextPaint;
+import android.view.View;
+
+/**
+ * The view LyricView adds to the window, the TextSwitcher based LyricSwitchView or the hardware layer based LyricLayerView
+ */
+public interface LyricDisplayView {
+  interface OnWindowVisibilityChangeListener {
+    void onWindowVisibilityChange(boolean isVisible);
+  }
+
+  View getView();
+
+  void setText(CharSequence text);
+
+  CharSequence getText();
+
+  TextPaint getPaint();
+
+  void setWidth(int width);
+
+  void setHeight(int height);
+
+  void setTextColor(int color);
+
+  void setPlayedColor(int unplayColor, int playedColor);
+
+  void setWords(LyricDocument document, int lineNum, LyricTextView.TimeSource timeSource);
+
+  void setShadowColor(int color);
+
+  void setTextSize(float size);
+
+  void setGravity(int gravity);
+
+  void setMaxLines(int maxLines);
+
+  void setShowAnima(boolean isShowAnima);
+
+  void setSingleLine(boolean isSingleLine);
+
+  /**
+   * Stop the text animations until resumed
+   */
+  void setSuspended(boolean isSuspended);
+
+  void setOnWindowVisibilityChangeListener(OnWindowVisibilityChangeListener listener);
+
+  // implemented by View
+  void setAlpha(float alpha);
+
+  void setOnTouchListener(View.OnTouchListener listener);
+
+  void setBackgroundColor(int color);
+
+  void setBackgroundResource(int resId);
+}
@@ -0,0 +1,204 @@
+package cn.toside.music.mobile.lyric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable parsed lyric.
+ * Line i has the time times[i] and the text texts[i], its extended lyrics are
+ * extendedTexts[extendedStarts[i]] until extendedTexts[extendedStarts[i + 1] - 1].
+ * Word timing of enhanced LRC is stored the same way, word j starts at the char wordOffsets[j] at wordTimes[j].
+ */
+public class LyricDocument {
+  // lines checked one by one before falling back to binary search, normal playback only steps one line ahead
+  private static final int LINEAR_SEEK_STEPS = 4;
+
+  public static final LyricDocument EMPTY = new LyricDocument(new int[0], new String[0], new int[1], new String[0]);
+
+  private final int[] times;
+  private final String[] texts;
+  private final int[] extendedStarts;
+  private final String[] extendedTexts;
+  private final List<String> extendedTextList;
+  private final int[] wordStarts;
+  private final int[] wordTimes;
+  private final int[] wordOffsets;
+
+  LyricDocument(int[] times, String[] texts, int[] extendedStarts, String[] extendedTexts) {
+    this(times, texts, extendedStarts, extendedTexts, new int[times.length + 1], new int[0], new int[0]);
+  }
+
+  LyricDocument(int[] times, String[] texts, int[] extendedStarts, String[] extendedTexts,
+                int[] wordStarts, int[] wordTimes, int[] wordOffsets) {
+    this.times = times;
+    this.texts = texts;
+    this.extendedStarts = extendedStarts;
+    this.extendedTexts = extendedTexts;
+    this.extendedTextList = Collections.unmodifiableList(Arrays.asList(extendedTexts));
+    this.wordStarts = wordStarts;
+    this.wordTimes = wordTimes;
+    this.wordOffsets = wordOffsets;
+  }
+
+  /**
+   * Same lines as `document` with other extended lyrics, the line and word arrays are shared
+   */
+  LyricDocument(LyricDocument document, int[] extendedStarts, String[] extendedTexts) {
+    this(document.times, document.texts, extendedStarts, extendedTexts,
+      document.wordStarts, document.wordTimes, document.wordOffsets);
+  }
+
+  /**
+   * Convert the lines of the regex parser
+   */
+  static LyricDocument fromLines(List<? extends Map> lines) {
+    int size = lines.size();
+    int[] times = new int[size];
+    String[] texts = new String[size];
+    int[] extendedStarts = new int[size + 1];
+    ArrayList<String> extendedTexts = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Map<?, ?> line = lines.get(i);
+      times[i] = (int) line.get("time");
+      texts[i] = (String) line.get("text");
+      extendedStarts[i] = extendedTexts.size();
+      for (Object extendedLyric : (List<?>) line.get("extendedLyrics")) extendedTexts.add((String) extendedLyric);
+    }
+    extendedStarts[size] = extendedTexts.size();
+    return new LyricDocument(times, texts, extendedStarts, extendedTexts.toArray(new String[0]));
+  }
+
+  private static int getMemorySize(String[] texts) {
+    int size = 16 + texts.length * 4;
+    for (String text : texts) size += 24 + text.length() * 2;
+    return size;
+  }
+
+  /**
+   * Estimated heap bytes held by the document
+   */
+  public int getMemorySize() {
+    return 64 + getMemorySize(texts) + getMemorySize(extendedTexts)
+      + (times.length + extendedStarts.length + wordStarts.length + wordTimes.length + wordOffsets.length) * 4 + 5 * 16;
+  }
+
+  public int size() {
+    return times.length;
+  }
+
+  public int getTime(int lineNum) {
+    return times[lineNum];
+  }
+
+  public String getText(int lineNum) {
+    return texts[lineNum];
+  }
+
+  /**
+   * Extended texts of all lines
+   */
+  public int getExtendedSize() {
+    return extendedTexts.length;
+  }
+
+  public int getExtendedCount(int lineNum) {
+    return extendedStarts[lineNum + 1] - extendedStarts[lineNum];
+  }
+
+  public String getExtendedText(int lineNum, int index) {
+    return extendedTexts[extendedStarts[lineNum] + index];
+  }
+
+  public int getWordCount(int lineNum) {
+    return wordStarts[lineNum + 1] - wordStarts[lineNum];
+  }
+
+  public int getWordTime(int lineNum, int index) {
+    return wordTimes[wordStarts[lineNum] + index];
+  }
+
+  public int getWordOffset(int lineNum, int index) {
+    return wordOffsets[wordStarts[lineNum] + index];
+  }
+
+  /**
+   * Played chars of the line at `time`, a word is played linearly until the next word starts.
+   * The last word ends at the next line.
+   * @return fractional char count, -1 if the line has no word timing
+   */
+  public float getPlayedLength(int lineNum, int time) {
+    int start = wordStarts[lineNum];
+    int end = wordStarts[lineNum + 1];
+    if (start == end) return -1;
+    if (time < wordTimes[start]) return 0;
+
+    int low = start;
+    int high = end;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (wordTimes[mid] > time) high = mid;
+      else low = mid + 1;
+    }
+    int word = low - 1;
+
+    int textLength = texts[lineNum].length();
+    int wordStart = wordOffsets[word];
+    int wordEnd;
+    int wordEndTime;
+    if (word + 1 < end) {
+      wordEnd = wordOffsets[word + 1];
+      wordEndTime = wordTimes[word + 1];
+    } else {
+      wordEnd = textLength;
+      wordEndTime = lineNum + 1 < times.length ? times[lineNum + 1] : wordTimes[word];
+    }
+    int duration = wordEndTime - wordTimes[word];
+    if (duration <= 0) return wordEnd;
+    float progress = Math.min((float)(time - wordTimes[word]) / duration, 1f);
+    return wordStart + (wordEnd - wordStart) * progress;
+  }
+
+  /**
+   * First line index in [fromIndex, size) whose time is greater than `time`, size if none
+   */
+  public int upperBound(int time, int fromIndex) {
+    int low = fromIndex;
+    int high = times.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (times[mid] > time) high = mid;
+      else low = mid + 1;
+    }
+    return low;
+  }
+
+  /**
+   * Line to show at `curTime`, searching from `startIndex`.
+   * The next few lines are checked directly so stepping forward stays O(1), seeks fall back to O(log n).
+   */
+  public int findLineNum(int curTime, int startIndex) {
+    if (curTime <= 0) return 0;
+    int length = times.length;
+    int linearEnd = Math.min(startIndex + LINEAR_SEEK_STEPS, length);
+    int index = startIndex;
+    for (; index < linearEnd; index++) {
+      if (curTime < times[index]) return index == 0 ? 0 : index - 1;
+    }
+    index = upperBound(curTime, index);
+    if (index >= length) return length - 1;
+    return index == 0 ? 0 : index - 1;
+  }
+
+  /**
+   * Read only view of the extended lyrics of the line
+   */
+  public List<String> getExtendedLyrics(int lineNum) {
+    int start = extendedStarts[lineNum];
+    int end = extendedStarts[lineNum + 1];
+    if (start == end) return Collections.emptyList();
+    return extendedTextList.subList(start, end);
+  }
+}
@@ -0,0 +1,128 @@
+package cn.toside.music.mobile.lyric;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.List;
+
+/**
+ * Sends the played lyric lines to JS from a background thread, identical consecutive lines are dropped.
+ * With a lookahead the event also carries the next lines and their delays, JS shows them by itself
+ * and the events of these lines are skipped until the last line of the batch is reached.
+ */
+public class LyricEventSender {
+  private final LyricEvent lyricEvent;
+  private final HandlerThread senderThread;
+  private final Handler handler;
+  private volatile int lookaheadLineNum = 0;
+
+  // sender thread only
+  private String lastText = null;
+  private List<String> lastExtendedLyrics = null;
+  private int lastLineNum = -1;
+  // lines after lastLineNum up to batchEndLineNum of batchDocument are shown by JS
+  private LyricDocument batchDocument = null;
+  private int batchEndLineNum = -1;
+  // JS may still have lines of a batch scheduled
+  private boolean isBatchPending = false;
+
+  private volatile int sentCount = 0;
+  private volatile int skippedCount = 0;
+
+  LyricEventSender(LyricEvent lyricEvent) {
+    this.lyricEvent = lyricEvent;
+    senderThread = new HandlerThread("LyricEventSender");
+    senderThread.start();
+    handler = new Handler(senderThread.getLooper());
+  }
+
+  /**
+   * @param lineNum number of following lines sent with each line event, 0 sends every line by itself
+   */
+  public void setLookaheadLineNum(int lineNum) {
+    lookaheadLineNum = Math.max(lineNum, 0);
+    invalidate();
+  }
+
+  /**
+   * @param document lyric of the line, null if the text is not a line of a lyric
+   * @param lyricTime lyric time at the line change, -1 if not playing
+   */
+  public void sendLine(LyricDocument document, int lineNum, String text, List<String> extendedLyrics, int lyricTime, float playbackRate) {
+    long changeTime = SystemClock.uptimeMillis();
+    handler.post(() -> handleSendLine(document, lineNum, text, extendedLyrics, lyricTime, playbackRate, changeTime));
+  }
+
+  /**
+   * The play time jumped, the scheduled lines of the last batch are no longer on time
+   */
+  public void invalidate() {
+    handler.post(() -> batchDocument = null);
+  }
+
+  private void handleSendLine(LyricDocument document, int lineNum, String text, List<String> extendedLyrics,
+                              int lyricTime, float playbackRate, long changeTime) {
+    boolean isInBatch = batchDocument != null && batchDocument == document
+      && lineNum == lastLineNum + 1 && lineNum < batchEndLineNum;
+    lastLineNum = lineNum;
+    if (isInBatch || (!isBatchPending && text.equals(lastText) && extendedLyrics.equals(lastExtendedLyrics))) {
+      lastText = text;
+      lastExtendedLyrics = extendedLyrics;
+      skippedCount++;
+      return;
+    }
+    lastText = text;
+    lastExtendedLyrics = extendedLyrics;
+
+    WritableMap params = Arguments.createMap();
+    params.putString("text", text);
+    params.putArray("extendedLyrics", Arguments.makeNativeArray(extendedLyrics));
+    batchDocument = null;
+    isBatchPending = false;
+    int num = lookaheadLineNum;
+    if (num > 0 && document != null && lineNum >= 0 && lyricTime >= 0) {
+      int endLineNum = Math.min(lineNum + num, document.size() - 1);
+      long elapsedTime = SystemClock.uptimeMillis() - changeTime;
+      WritableArray lines = Arguments.createArray();
+      for (int i = lineNum + 1; i <= endLineNum; i++) {
+        int time = document.getTime(i);
+        WritableMap line = Arguments.createMap();
+        line.putInt("time", time);
+        line.putDouble("delay", Math.max((time - lyricTime) / playbackRate - elapsedTime, 0));
+        line.putString("text", document.getText(i));
+        line.putArray("extendedLyrics", Arguments.makeNativeArray(document.getExtendedLyrics(i)));
+        lines.pushMap(line);
+      }
+      params.putArray("lines", lines);
+      if (endLineNum > lineNum) {
+        batchDocument = document;
+        batchEndLineNum = endLineNum;
+        isBatchPending = true;
+      }
+    }
+    sentCount++;
+    lyricEvent.sendEvent(lyricEvent.LYRIC_Line_PLAY, params);
+  }
+
+  public int getSentCount() {
+    return sentCount;
+  }
+
+  public int getSkippedCount() {
+    return skippedCount;
+  }
+
+  public void resetStats() {
+    sentCount = 0;
+    skippedCount = 0;
+  }
+
+  public void release() {
+    senderThread.quitSafely();
+  }
+}
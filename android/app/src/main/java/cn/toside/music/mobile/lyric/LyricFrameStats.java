@@ -0,0 +1,167 @@
+package cn.toside.music.mobile.lyric;
+
+import android.os.SystemClock;
+
+/**
+ * Frame time and wakeup counters of the desktop lyric views, nothing is counted until enabled
+ */
+public class LyricFrameStats {
+  public static final LyricFrameStats shared = new LyricFrameStats();
+
+  private volatile boolean isEnabled = false;
+  private int wakeupCount = 0;
+  private int frameCount = 0;
+  private long totalFrameInterval = 0;
+  private long maxFrameInterval = 0;
+  private int drawCount = 0;
+  private long totalDrawTime = 0;
+  private long maxDrawTime = 0;
+  private int layoutRequestCount = 0;
+  private int layoutUpdateCount = 0;
+  private int overlayRebuildCount = 0;
+  private boolean isFirstDrawPending = false;
+  private int firstDrawCount = 0;
+  private long totalFirstDrawTime = 0;
+  private long maxFirstDrawTime = 0;
+  private long resetTime = SystemClock.uptimeMillis();
+
+  public boolean isEnabled() {
+    return isEnabled;
+  }
+
+  public void setEnabled(boolean isEnabled) {
+    this.isEnabled = isEnabled;
+  }
+
+  /**
+   * A frame callback or a posted runnable that woke the view thread
+   */
+  public synchronized void recordWakeup() {
+    wakeupCount++;
+  }
+
+  /**
+   * Time between two animation frames in ns
+   */
+  public synchronized void recordFrameInterval(long interval) {
+    frameCount++;
+    totalFrameInterval += interval;
+    if (interval > maxFrameInterval) maxFrameInterval = interval;
+  }
+
+  public synchronized void recordDraw(long drawTime) {
+    drawCount++;
+    totalDrawTime += drawTime;
+    if (drawTime > maxDrawTime) maxDrawTime = drawTime;
+    if (!isFirstDrawPending) return;
+    isFirstDrawPending = false;
+    firstDrawCount++;
+    totalFirstDrawTime += drawTime;
+    if (drawTime > maxFirstDrawTime) maxFirstDrawTime = drawTime;
+  }
+
+  /**
+   * The next draw is the first one of a new overlay or a new lyric
+   */
+  public synchronized void requestFirstDraw() {
+    isFirstDrawPending = true;
+  }
+
+  /**
+   * A change of the window layout params, requests of the same frame share one update
+   */
+  public synchronized void recordLayoutRequest() {
+    layoutRequestCount++;
+  }
+
+  /**
+   * An updateViewLayout call sent to the window manager
+   */
+  public synchronized void recordLayoutUpdate() {
+    layoutUpdateCount++;
+  }
+
+  /**
+   * The overlay window was removed and added again
+   */
+  public synchronized void recordOverlayRebuild() {
+    overlayRebuildCount++;
+  }
+
+  public synchronized int getWakeupCount() {
+    return wakeupCount;
+  }
+
+  public synchronized int getFrameCount() {
+    return frameCount;
+  }
+
+  public synchronized double getAverageFrameInterval() {
+    return frameCount == 0 ? 0 : (double) totalFrameInterval / frameCount;
+  }
+
+  public synchronized long getMaxFrameInterval() {
+    return maxFrameInterval;
+  }
+
+  public synchronized int getDrawCount() {
+    return drawCount;
+  }
+
+  public synchronized double getAverageDrawTime() {
+    return drawCount == 0 ? 0 : (double) totalDrawTime / drawCount;
+  }
+
+  public synchronized long getMaxDrawTime() {
+    return maxDrawTime;
+  }
+
+  public synchronized int getFirstDrawCount() {
+    return firstDrawCount;
+  }
+
+  public synchronized double getAverageFirstDrawTime() {
+    return firstDrawCount == 0 ? 0 : (double) totalFirstDrawTime / firstDrawCount;
+  }
+
+  public synchronized long getMaxFirstDrawTime() {
+    return maxFirstDrawTime;
+  }
+
+  public synchronized int getLayoutRequestCount() {
+    return layoutRequestCount;
+  }
+
+  public synchronized int getLayoutUpdateCount() {
+    return layoutUpdateCount;
+  }
+
+  public synchronized int getOverlayRebuildCount() {
+    return overlayRebuildCount;
+  }
+
+  /**
+   * Time since the last reset in ms
+   */
+  public synchronized long getElapsedTime() {
+    return SystemClock.uptimeMillis() - resetTime;
+  }
+
+  public synchronized void reset() {
+    wakeupCount = 0;
+    frameCount = 0;
+    totalFrameInterval = 0;
+    maxFrameInterval = 0;
+    drawCount = 0;
+    totalDrawTime = 0;
+    maxDrawTime = 0;
+    isFirstDrawPending = false;
+    firstDrawCount = 0;
+    totalFirstDrawTime = 0;
+    maxFirstDrawTime = 0;
+    layoutRequestCount = 0;
+    layoutUpdateCount = 0;
+    overlayRebuildCount = 0;
+    resetTime = SystemClock.uptimeMillis();
+  }
+}
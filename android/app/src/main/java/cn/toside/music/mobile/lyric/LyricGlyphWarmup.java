@@ -0,0 +1,98 @@
+package cn.toside.music.mobile.lyric;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Measures and draws the glyphs of the upcoming lyric lines into a small offscreen bitmap on a background thread.
+ * Text layouts and rasterized glyphs are cached per process, so the first on screen draw of these lines
+ * does not shape and rasterize cold CJK glyphs.
+ */
+public class LyricGlyphWarmup {
+  // lines after the current line that are warmed up
+  static final int LINE_NUM = 5;
+  private static final int MAX_CODE_POINT_NUM = 4096;
+
+  private static final ExecutorService warmupExecutor = Executors.newSingleThreadExecutor();
+
+  // ui thread
+  private LyricDocument document = null;
+  // lines before this are queued
+  private int endLineNum = 0;
+  private float textSize = 0;
+  private Typeface typeface = null;
+  private volatile int generation = 0;
+
+  // warmup thread
+  private Paint warmupPaint = null;
+  private Canvas canvas = null;
+  private float baseline = 0;
+  private final HashSet<Integer> warmedCodePoints = new HashSet<>();
+
+  /**
+   * Queue the line and the LINE_NUM lines after it that were not queued yet
+   * @param lineNum line shown now, -1 before the first line
+   */
+  public void warmup(LyricDocument document, int lineNum, Paint paint) {
+    if (document == null || paint == null) return;
+    Paint newPaint = null;
+    if (paint.getTextSize() != textSize || paint.getTypeface() != typeface) {
+      textSize = paint.getTextSize();
+      typeface = paint.getTypeface();
+      newPaint = new Paint(paint);
+      newPaint.clearShadowLayer();
+      this.document = null;
+    }
+    if (document != this.document) {
+      this.document = document;
+      endLineNum = 0;
+      generation++;
+    }
+    int start = Math.max(endLineNum, Math.max(lineNum, 0));
+    int end = Math.min(Math.max(lineNum, 0) + LINE_NUM + 1, document.size());
+    if (start >= end && newPaint == null) return;
+    endLineNum = Math.max(endLineNum, end);
+    int taskGeneration = generation;
+    Paint taskPaint = newPaint;
+    warmupExecutor.execute(() -> warmLines(taskGeneration, taskPaint, document, start, end));
+  }
+
+  private void warmLines(int generation, Paint paint, LyricDocument document, int start, int end) {
+    if (paint != null) setPaint(paint);
+    if (generation != this.generation || warmupPaint == null) return;
+    for (int i = start; i < end; i++) {
+      warmText(document.getText(i));
+      for (String text : document.getExtendedLyrics(i)) warmText(text);
+    }
+  }
+
+  private void setPaint(Paint paint) {
+    warmupPaint = paint;
+    warmedCodePoints.clear();
+    Paint.FontMetrics fontMetrics = paint.getFontMetrics();
+    int size = (int) Math.ceil(fontMetrics.bottom - fontMetrics.top) + 1;
+    canvas = new Canvas(Bitmap.createBitmap(size * 2, size, Bitmap.Config.ALPHA_8));
+    baseline = -fontMetrics.top;
+  }
+
+  private void warmText(String text) {
+    int length = text.length();
+    if (length == 0) return;
+    warmupPaint.measureText(text);
+    if (warmedCodePoints.size() > MAX_CODE_POINT_NUM) warmedCodePoints.clear();
+    for (int i = 0; i < length; ) {
+      int codePoint = text.codePointAt(i);
+      int count = Character.charCount(codePoint);
+      if (!Character.isWhitespace(codePoint) && warmedCodePoints.add(codePoint)) {
+        canvas.drawText(text, i, i + count, 0, baseline, warmupPaint);
+      }
+      i += count;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package cn.toside.music.mobile.lyric;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.view.View;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+
+/**
+ * Same API as LyricSwitchView, but the line transition runs as property animations of the two line views.
+ * Translation and alpha only change properties of the views' render nodes, so the text is not drawn again while
+ * animating, and withLayer keeps the lines with their shadow in a hardware layer until the transition ends.
+ * The window needs FLAG_HARDWARE_ACCELERATED, otherwise this falls back to software drawing.
+ */
+@SuppressLint({"ViewConstructor"})
+public final class LyricLayerView extends FrameLayout implements LyricDisplayView {
+  private static final long ANIMA_DURATION = 300L;
+
+  private final ArrayList<TextView> viewArray = new ArrayList<>(2);
+  private final Runnable[] hideRunnables = new Runnable[2];
+  private int currentIndex = 0;
+  private boolean isShowAnima;
+  private boolean isSingleLine;
+  private boolean isSuspended = false;
+  private OnWindowVisibilityChangeListener windowVisibilityChangeListener = null;
+
+  public LyricLayerView(Context context, boolean isSingleLine, boolean isShowAnima) {
+    super(context);
+    this.isShowAnima = isShowAnima;
+    this.isSingleLine = isSingleLine;
+    createLines();
+  }
+
+  private void createLines() {
+    Context context = getContext();
+    viewArray.clear();
+    currentIndex = 0;
+    for (int i = 0; i < 2; i++) {
+      TextView v;
+      if (isSingleLine) {
+        v = new LyricTextView(context);
+      } else {
+        v = new TextView(context);
+        v.setEllipsize(TextUtils.TruncateAt.END);
+      }
+      viewArray.add(v);
+      hideRunnables[i] = () -> v.setVisibility(View.INVISIBLE);
+      addView(v);
+    }
+    TextView next = viewArray.get(1);
+    next.setAlpha(0);
+    next.setVisibility(View.INVISIBLE);
+    if (isSuspended) setSuspended(true);
+  }
+
+  @Override
+  public View getView() {
+    return this;
+  }
+
+  private TextView getCurrentView() {
+    return viewArray.get(currentIndex);
+  }
+
+  @Override
+  public void setText(CharSequence text) {
+    TextView current = getCurrentView();
+    if (!isShowAnima || !isAttachedToWindow()) {
+      current.setText(text);
+      return;
+    }
+
+    int nextIndex = currentIndex ^ 1;
+    TextView next = viewArray.get(nextIndex);
+    float height = current.getTextSize();
+    current.animate().cancel();
+    next.animate().cancel();
+
+    next.setText(text);
+    next.setTranslationY(height);
+    next.setAlpha(0);
+    next.setVisibility(View.VISIBLE);
+    next.animate().translationY(0).alpha(1).setDuration(ANIMA_DURATION).withLayer();
+    current.animate().translationY(-height).alpha(0).setDuration(ANIMA_DURATION).withLayer()
+      .withEndAction(hideRunnables[currentIndex]);
+    currentIndex = nextIndex;
+  }
+
+  @Override
+  public CharSequence getText() {
+    return getCurrentView().getText();
+  }
+
+  @Override
+  public TextPaint getPaint() {
+    return getCurrentView().getPaint();
+  }
+
+  @Override
+  public void setShowAnima(boolean showAnima) {
+    isShowAnima = showAnima;
+  }
+
+  @Override
+  public void setWidth(int i) {
+    for (TextView v : viewArray) v.setWidth(i);
+  }
+
+  @Override
+  public void setHeight(int i) {
+    for (TextView v : viewArray) v.setHeight(i);
+  }
+
+  @Override
+  public void setTextColor(int i) {
+    for (TextView v : viewArray) v.setTextColor(i);
+  }
+
+  @Override
+  public void setPlayedColor(int unplayColor, int playedColor) {
+    for (TextView v : viewArray) {
+      if (v instanceof LyricTextView) ((LyricTextView) v).setPlayedColor(unplayColor, playedColor);
+    }
+  }
+
+  /**
+   * Word timing of the current text, only shown in single line mode
+   */
+  @Override
+  public void setWords(LyricDocument document, int lineNum, LyricTextView.TimeSource timeSource) {
+    TextView currentView = getCurrentView();
+    if (currentView instanceof LyricTextView) ((LyricTextView) currentView).setWords(document, lineNum, timeSource);
+  }
+
+  @Override
+  public void setShadowColor(int i) {
+    for (TextView v : viewArray) v.setShadowLayer(1.6f, 1.5f, 1.3f, i);
+  }
+
+  @Override
+  public void setTextSize(float f) {
+    for (TextView v : viewArray) v.setTextSize(f);
+  }
+
+  @Override
+  public void setGravity(int i) {
+    for (TextView v : viewArray) v.setGravity(i);
+  }
+
+  @Override
+  public void setSuspended(boolean isSuspended) {
+    this.isSuspended = isSuspended;
+    for (TextView v : viewArray) {
+      if (v instanceof LyricTextView) ((LyricTextView) v).setSuspended(isSuspended);
+    }
+  }
+
+  @Override
+  public void setOnWindowVisibilityChangeListener(OnWindowVisibilityChangeListener listener) {
+    windowVisibilityChangeListener = listener;
+  }
+
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    if (windowVisibilityChangeListener != null) windowVisibilityChangeListener.onWindowVisibilityChange(visibility == View.VISIBLE);
+  }
+
+  /**
+   * Replace the two line views in place, the text and style must be set again
+   */
+  @Override
+  public void setSingleLine(boolean isSingleLine) {
+    if (this.isSingleLine == isSingleLine) return;
+    this.isSingleLine = isSingleLine;
+    for (TextView v : viewArray) v.animate().cancel();
+    removeAllViews();
+    createLines();
+  }
+
+  @Override
+  public void setMaxLines(int i) {
+    for (TextView v : viewArray) v.setMaxLines(i);
+  }
+}
@@ -12,6 +12,7 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
 
 public class LyricModule extends ReactContextBaseJavaModule {
   private final ReactApplicationContext reactContext;
@@ -21,6 +22,11 @@ public class LyricModule extends ReactContextBaseJavaModule {
   boolean isShowTranslation = false;
   boolean isShowRoma = false;
   float playbackRate = 1;
+  boolean isUseFastParser = true;
+  boolean isUseLayerRenderer = false;
+  boolean isUseScrollPanel = false;
+  boolean isGlyphWarmupEnabled = false;
+  int eventLookaheadLineNum = 0;
 
   private int listenerCount = 0;
 
@@ -48,6 +54,24 @@ public class LyricModule extends ReactContextBaseJavaModule {
 //    return constants;
 //  }
 
+  private void createLyric() {
+    lyric = new Lyric(reactContext, isShowTranslation, isShowRoma, playbackRate);
+    lyric.setUseFastParser(isUseFastParser);
+    lyric.setUseLayerRenderer(isUseLayerRenderer);
+    lyric.setUseScrollPanel(isUseScrollPanel);
+    lyric.setGlyphWarmupEnabled(isGlyphWarmupEnabled);
+    lyric.setEventLookaheadLineNum(eventLookaheadLineNum);
+  }
+
+  @Override
+  public void invalidate() {
+    super.invalidate();
+    // the clock tick thread and the screen receiver would outlive a reload
+    if (lyric == null) return;
+    lyric.release();
+    lyric = null;
+  }
+
   @ReactMethod
   public void addListener(String eventName) {
     if (listenerCount == 0) {
@@ -67,7 +91,7 @@ public class LyricModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void showDesktopLyric(ReadableMap data, Promise promise) {
-    if (lyric == null) lyric = new Lyric(reactContext, isShowTranslation, isShowRoma, playbackRate);
+    if (lyric == null) createLyric();
     lyric.showDesktopLyric(Arguments.toBundle(data), promise);
   }
 
@@ -79,7 +103,7 @@ public class LyricModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void setSendLyricTextEvent(boolean isSend, Promise promise) {
-    if (lyric == null) lyric = new Lyric(reactContext, isShowTranslation, isShowRoma, playbackRate);
+    if (lyric == null) createLyric();
     lyric.setSendLyricTextEvent(isSend);
     promise.resolve(null);
   }
@@ -100,6 +124,41 @@ public class LyricModule extends ReactContextBaseJavaModule {
     promise.resolve(null);
   }
 
+  @ReactMethod
+  public void setUseFastParser(boolean isUseFastParser, Promise promise) {
+    this.isUseFastParser = isUseFastParser;
+    if (lyric != null) lyric.setUseFastParser(isUseFastParser);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void setUseLayerRenderer(boolean isUseLayerRenderer, Promise promise) {
+    this.isUseLayerRenderer = isUseLayerRenderer;
+    if (lyric != null) lyric.setUseLayerRenderer(isUseLayerRenderer);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void setUseScrollPanel(boolean isUseScrollPanel, Promise promise) {
+    this.isUseScrollPanel = isUseScrollPanel;
+    if (lyric != null) lyric.setUseScrollPanel(isUseScrollPanel);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void setGlyphWarmupEnabled(boolean isEnabled, Promise promise) {
+    this.isGlyphWarmupEnabled = isEnabled;
+    if (lyric != null) lyric.setGlyphWarmupEnabled(isEnabled);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void setEventLookaheadLineNum(int lineNum, Promise promise) {
+    this.eventLookaheadLineNum = lineNum;
+    if (lyric != null) lyric.setEventLookaheadLineNum(lineNum);
+    promise.resolve(null);
+  }
+
   @ReactMethod
   public void toggleTranslation(boolean isShowTranslation, Promise promise) {
     this.isShowTranslation = isShowTranslation;
@@ -188,6 +247,93 @@ public class LyricModule extends ReactContextBaseJavaModule {
     promise.resolve(null);
   }
 
+  @ReactMethod
+  public void getDriftStats(boolean isReset, Promise promise) {
+    WritableMap stats = Arguments.createMap();
+    if (lyric != null) {
+      LyricClock clock = lyric.getClock();
+      stats.putInt("tickCount", clock.getTickCount());
+      stats.putInt("lateTickCount", clock.getLateTickCount());
+      stats.putDouble("averageDriftTime", clock.getAverageDriftTime());
+      stats.putDouble("maxDriftTime", clock.getMaxDriftTime());
+      if (isReset) clock.resetDriftStats();
+    }
+    promise.resolve(stats);
+  }
+
+  @ReactMethod
+  public void getPowerStats(boolean isReset, Promise promise) {
+    WritableMap stats = Arguments.createMap();
+    if (lyric != null) {
+      LyricPowerPolicy powerPolicy = lyric.getPowerPolicy();
+      stats.putBoolean("isSuspended", powerPolicy.isSuspended());
+      stats.putInt("reasons", powerPolicy.getReasons());
+      stats.putInt("suspendCount", powerPolicy.getSuspendCount());
+      stats.putDouble("suspendedTimeMs", powerPolicy.getSuspendedTime());
+      if (isReset) powerPolicy.resetStats();
+    }
+    promise.resolve(stats);
+  }
+
+  @ReactMethod
+  public void getEventStats(boolean isReset, Promise promise) {
+    WritableMap stats = Arguments.createMap();
+    LyricEventSender sender = lyric == null ? null : lyric.getLyricEventSender();
+    if (sender != null) {
+      stats.putInt("sentCount", sender.getSentCount());
+      stats.putInt("skippedCount", sender.getSkippedCount());
+      if (isReset) sender.resetStats();
+    }
+    promise.resolve(stats);
+  }
+
+  @ReactMethod
+  public void getCacheStats(boolean isReset, Promise promise) {
+    LyricCache cache = LyricCache.shared;
+    WritableMap stats = Arguments.createMap();
+    stats.putInt("hitCount", cache.getHitCount());
+    stats.putInt("missCount", cache.getMissCount());
+    stats.putInt("evictionCount", cache.getEvictionCount());
+    stats.putInt("entryCount", cache.getEntryCount());
+    stats.putInt("size", cache.getSize());
+    stats.putInt("maxSize", cache.getMaxSize());
+    if (isReset) cache.resetStats();
+    promise.resolve(stats);
+  }
+
+  @ReactMethod
+  public void setFrameStatsEnabled(boolean isEnabled, Promise promise) {
+    LyricFrameStats.shared.setEnabled(isEnabled);
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void getFrameStats(boolean isReset, Promise promise) {
+    LyricFrameStats frameStats = LyricFrameStats.shared;
+    WritableMap stats = Arguments.createMap();
+    stats.putInt("wakeupCount", frameStats.getWakeupCount());
+    stats.putInt("frameCount", frameStats.getFrameCount());
+    stats.putDouble("averageFrameIntervalNs", frameStats.getAverageFrameInterval());
+    stats.putDouble("maxFrameIntervalNs", frameStats.getMaxFrameInterval());
+    stats.putInt("drawCount", frameStats.getDrawCount());
+    stats.putDouble("averageDrawTimeNs", frameStats.getAverageDrawTime());
+    stats.putDouble("maxDrawTimeNs", frameStats.getMaxDrawTime());
+    stats.putInt("firstDrawCount", frameStats.getFirstDrawCount());
+    stats.putDouble("averageFirstDrawTimeNs", frameStats.getAverageFirstDrawTime());
+    stats.putDouble("maxFirstDrawTimeNs", frameStats.getMaxFirstDrawTime());
+    stats.putInt("layoutRequestCount", frameStats.getLayoutRequestCount());
+    stats.putInt("layoutUpdateCount", frameStats.getLayoutUpdateCount());
+    stats.putInt("overlayRebuildCount", frameStats.getOverlayRebuildCount());
+    stats.putDouble("elapsedTimeMs", frameStats.getElapsedTime());
+    stats.putInt("layoutCacheHitCount", LyricTextLayoutCache.getHitCount());
+    stats.putInt("layoutCacheMissCount", LyricTextLayoutCache.getMissCount());
+    if (isReset) {
+      frameStats.reset();
+      LyricTextLayoutCache.resetStats();
+    }
+    promise.resolve(stats);
+  }
+
   @ReactMethod
   public void checkOverlayPermission(Promise promise) {
     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(reactContext)) {
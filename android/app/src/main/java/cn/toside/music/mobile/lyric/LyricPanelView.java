@@ -0,0 +1,379 @@
+package cn.toside.music.mobile.lyric;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.Gravity;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Scrolling lyric panel, shows the previous and upcoming lines of the document around the current line.
+ * A fixed ring of line renderers is bound to the visible lines, a line change only rebinds the lines that scrolled in.
+ * The lines are drawn once per line change, the scroll is a translation animation of the drawn lines in a hardware layer.
+ */
+@SuppressLint({"ViewConstructor"})
+public final class LyricPanelView extends FrameLayout implements LyricDisplayView {
+  private static final long SCROLL_DURATION = 300L;
+  private static final int MAX_EXTENDED_LINE_NUM = 2;
+
+  private static class LineRenderer {
+    int lineNum = -1;
+    String text = "";
+    List<String> extendedLyrics = Collections.emptyList();
+
+    void bind(LyricDocument document, int lineNum, TextPaint paint, LyricTextLayoutCache layoutCache, float maxWidth) {
+      if (document == null || lineNum < 0 || lineNum >= document.size()) {
+        clear();
+        return;
+      }
+      this.lineNum = lineNum;
+      text = ellipsize(document.getText(lineNum), paint, layoutCache, maxWidth);
+      extendedLyrics = document.getExtendedLyrics(lineNum);
+    }
+
+    void clear() {
+      lineNum = -1;
+      text = "";
+      extendedLyrics = Collections.emptyList();
+    }
+
+    private static String ellipsize(String text, TextPaint paint, LyricTextLayoutCache layoutCache, float maxWidth) {
+      if (maxWidth <= 0 || layoutCache.get(text, paint).width <= maxWidth) return text;
+      return TextUtils.ellipsize(text, paint, maxWidth, TextUtils.TruncateAt.END).toString();
+    }
+  }
+
+  private final class LinesView extends View {
+    LinesView(Context context) {
+      super(context);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+      LyricFrameStats frameStats = LyricFrameStats.shared;
+      long drawStartTime = frameStats.isEnabled() ? System.nanoTime() : 0;
+      int num = renderers.length;
+      if (document == null || document.size() == 0) {
+        paint.setColor(playedColor);
+        drawText(canvas, text, beforeLineNum * slotHeight - fontMetrics.ascent);
+      } else {
+        for (int i = 0; i < num; i++) {
+          LineRenderer renderer = renderers[(ringStart + i) % num];
+          if (renderer.lineNum < 0) continue;
+          paint.setColor(renderer.lineNum == currentLineNum ? playedColor : unplayColor);
+          float y = i * slotHeight - fontMetrics.ascent;
+          drawText(canvas, renderer.text, y);
+          int extendedNum = Math.min(renderer.extendedLyrics.size(), maxExtendedLineNum);
+          for (int j = 0; j < extendedNum; j++) {
+            y += lineHeight;
+            drawText(canvas, renderer.extendedLyrics.get(j), y);
+          }
+        }
+      }
+      if (drawStartTime != 0) frameStats.recordDraw(System.nanoTime() - drawStartTime);
+    }
+
+    private void drawText(Canvas canvas, String text, float y) {
+      float x;
+      switch (gravityHorizontal) {
+        case Gravity.CENTER_HORIZONTAL:
+          x = (viewWidth - layoutCache.get(text, paint).width) / 2;
+          break;
+        case Gravity.END:
+          x = viewWidth - layoutCache.get(text, paint).width;
+          break;
+        default:
+          x = 0;
+          break;
+      }
+      canvas.drawText(text, Math.max(x, 0), y, paint);
+    }
+  }
+
+  private final LinesView linesView;
+  private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+  private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+  private final LyricTextLayoutCache layoutCache = new LyricTextLayoutCache();
+  private int playedColor = Color.WHITE;
+  private int unplayColor = Color.WHITE;
+  private int gravityHorizontal = Gravity.START;
+  private int gravityVertical = Gravity.TOP;
+  private boolean isShowAnima;
+  private boolean isSuspended = false;
+  private OnWindowVisibilityChangeListener windowVisibilityChangeListener = null;
+
+  private float viewWidth = 0;
+  private float viewHeight = 0;
+  private float lineHeight = 0;
+  // a line with its extended lyrics
+  private float slotHeight = 0;
+
+  private String text = "";
+  private LyricDocument document = null;
+  private int maxExtendedLineNum = 0;
+  // highlighted line, -1 if none
+  private int currentLineNum = -1;
+  // line at the anchor position of the panel
+  private int anchorLineNum = 0;
+  private LineRenderer[] renderers = new LineRenderer[0];
+  // renderers[ringStart] shows the first line of the ring
+  private int ringStart = 0;
+  // lines of the ring above the anchor line
+  private int beforeLineNum = 0;
+
+  public LyricPanelView(Context context, boolean isShowAnima) {
+    super(context);
+    this.isShowAnima = isShowAnima;
+    linesView = new LinesView(context);
+    addView(linesView, new LayoutParams(LayoutParams.MATCH_PARENT, 0));
+    updateMetrics();
+  }
+
+  @Override
+  public View getView() {
+    return this;
+  }
+
+  @Override
+  protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+    super.onSizeChanged(w, h, oldw, oldh);
+    if (w == viewWidth && h == viewHeight) return;
+    viewWidth = w;
+    viewHeight = h;
+    updateRing();
+  }
+
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    if (windowVisibilityChangeListener != null) windowVisibilityChangeListener.onWindowVisibilityChange(visibility == View.VISIBLE);
+  }
+
+  private void updateMetrics() {
+    paint.getFontMetrics(fontMetrics);
+    lineHeight = paint.getFontSpacing();
+    slotHeight = lineHeight * (1 + maxExtendedLineNum);
+  }
+
+  private float getAnchorY() {
+    switch (gravityVertical) {
+      case Gravity.CENTER_VERTICAL:
+        return (viewHeight - slotHeight) / 2;
+      case Gravity.BOTTOM:
+        return viewHeight - slotHeight;
+      default:
+        return 0;
+    }
+  }
+
+  private float getRingTranslationY() {
+    return getAnchorY() - beforeLineNum * slotHeight;
+  }
+
+  /**
+   * Size the ring to the visible lines plus one line on each side, the renderers are only allocated here
+   */
+  private void updateRing() {
+    linesView.animate().cancel();
+    float anchorY = Math.max(getAnchorY(), 0);
+    int before = 0;
+    int after = 0;
+    if (slotHeight > 0) {
+      before = (int) Math.ceil(anchorY / slotHeight) + 1;
+      after = (int) Math.ceil(Math.max(viewHeight - anchorY - slotHeight, 0) / slotHeight) + 1;
+    }
+    beforeLineNum = before;
+    int num = before + 1 + after;
+    if (renderers.length != num) {
+      renderers = new LineRenderer[num];
+      for (int i = 0; i < num; i++) renderers[i] = new LineRenderer();
+    }
+    ringStart = 0;
+    for (int i = 0; i < num; i++) bindSlot(i);
+    linesView.getLayoutParams().height = (int) Math.ceil(num * slotHeight);
+    linesView.requestLayout();
+    linesView.setTranslationY(getRingTranslationY());
+    linesView.invalidate();
+  }
+
+  private void bindSlot(int slot) {
+    renderers[(ringStart + slot) % renderers.length].bind(document, anchorLineNum - beforeLineNum + slot, paint, layoutCache, viewWidth);
+  }
+
+  /**
+   * Rotate the ring by the scrolled lines and bind the lines that came into it
+   */
+  private void shiftRing(int delta) {
+    int num = renderers.length;
+    if (Math.abs(delta) >= num) {
+      ringStart = 0;
+      for (int i = 0; i < num; i++) bindSlot(i);
+      return;
+    }
+    ringStart = ((ringStart + delta) % num + num) % num;
+    if (delta > 0) {
+      for (int i = num - delta; i < num; i++) bindSlot(i);
+    } else {
+      for (int i = 0; i < -delta; i++) bindSlot(i);
+    }
+  }
+
+  private static int getMaxExtendedLineNum(LyricDocument document) {
+    if (document == null || document.getExtendedSize() == 0) return 0;
+    int max = 0;
+    for (int i = 0, size = document.size(); i < size && max < MAX_EXTENDED_LINE_NUM; i++) {
+      max = Math.max(max, document.getExtendedLyrics(i).size());
+    }
+    return Math.min(max, MAX_EXTENDED_LINE_NUM);
+  }
+
+  private void setDocument(LyricDocument document) {
+    this.document = document;
+    anchorLineNum = 0;
+    currentLineNum = -1;
+    int extendedLineNum = getMaxExtendedLineNum(document);
+    if (extendedLineNum != maxExtendedLineNum) {
+      maxExtendedLineNum = extendedLineNum;
+      updateMetrics();
+    }
+    updateRing();
+  }
+
+  private void scrollTo(int lineNum) {
+    int delta = lineNum - anchorLineNum;
+    currentLineNum = lineNum;
+    if (delta != 0) {
+      anchorLineNum = lineNum;
+      shiftRing(delta);
+    }
+    linesView.invalidate();
+    linesView.animate().cancel();
+    float translationY = getRingTranslationY();
+    if (delta == 0 || !isShowAnima || isSuspended || Math.abs(delta) >= renderers.length || !isAttachedToWindow()) {
+      linesView.setTranslationY(translationY);
+      return;
+    }
+    // start where the lines are shown now, an interrupted scroll continues from its position
+    linesView.setTranslationY(linesView.getTranslationY() + delta * slotHeight);
+    linesView.animate().translationY(translationY).setDuration(SCROLL_DURATION).withLayer();
+  }
+
+  @Override
+  public void setText(CharSequence text) {
+    this.text = text == null ? "" : text.toString();
+    if (document == null || document.size() == 0) linesView.invalidate();
+  }
+
+  @Override
+  public CharSequence getText() {
+    if (document != null && currentLineNum >= 0 && currentLineNum < document.size()) return document.getText(currentLineNum);
+    return text;
+  }
+
+  @Override
+  public TextPaint getPaint() {
+    return paint;
+  }
+
+  /**
+   * Show the lines of the document around the line, the text set before is only shown for a document without lines.
+   * Without a line the panel keeps its position and no line is highlighted.
+   */
+  @Override
+  public void setWords(LyricDocument document, int lineNum, LyricTextView.TimeSource timeSource) {
+    if (document != this.document) setDocument(document);
+    if (document == null || lineNum < 0 || lineNum >= document.size()) {
+      currentLineNum = -1;
+      linesView.invalidate();
+      return;
+    }
+    scrollTo(lineNum);
+  }
+
+  @Override
+  public void setWidth(int width) {
+    if (width == viewWidth) return;
+    viewWidth = width;
+    updateRing();
+  }
+
+  @Override
+  public void setHeight(int height) {
+    if (height == viewHeight) return;
+    viewHeight = height;
+    updateRing();
+  }
+
+  @Override
+  public void setTextColor(int color) {
+    playedColor = color;
+    linesView.invalidate();
+  }
+
+  @Override
+  public void setPlayedColor(int unplayColor, int playedColor) {
+    this.unplayColor = unplayColor;
+    this.playedColor = playedColor;
+    linesView.invalidate();
+  }
+
+  @Override
+  public void setShadowColor(int color) {
+    paint.setShadowLayer(1.6f, 1.5f, 1.3f, color);
+    linesView.invalidate();
+  }
+
+  @Override
+  public void setTextSize(float size) {
+    paint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, size, getResources().getDisplayMetrics()));
+    updateMetrics();
+    updateRing();
+  }
+
+  @Override
+  public void setGravity(int gravity) {
+    int horizontal = gravity & Gravity.RELATIVE_HORIZONTAL_GRAVITY_MASK;
+    gravityHorizontal = horizontal == 0 ? Gravity.START : horizontal;
+    gravityVertical = gravity & Gravity.VERTICAL_GRAVITY_MASK;
+    updateRing();
+  }
+
+  /**
+   * The panel shows as many lines as fit its height
+   */
+  @Override
+  public void setMaxLines(int maxLines) {}
+
+  @Override
+  public void setShowAnima(boolean isShowAnima) {
+    this.isShowAnima = isShowAnima;
+  }
+
+  /**
+   * Lines always show the document lines, there is no single line mode
+   */
+  @Override
+  public void setSingleLine(boolean isSingleLine) {}
+
+  @Override
+  public void setSuspended(boolean isSuspended) {
+    this.isSuspended = isSuspended;
+    if (!isSuspended) return;
+    linesView.animate().cancel();
+    linesView.setTranslationY(getRingTranslationY());
+  }
+
+  @Override
+  public void setOnWindowVisibilityChangeListener(OnWindowVisibilityChangeListener listener) {
+    windowVisibilityChangeListener = listener;
+  }
+}
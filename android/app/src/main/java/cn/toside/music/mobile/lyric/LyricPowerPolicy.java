@@ -0,0 +1,83 @@
+package cn.toside.music.mobile.lyric;
+
+import android.os.SystemClock;
+
+/**
+ * Tracks why nobody can see the desktop lyric. While any reason is set the lyric view stops rendering,
+ * and the line timer is suspended if no lyric text events need it.
+ * An empty line only stops rendering, the timer has to run to reach the next line.
+ */
+public class LyricPowerPolicy {
+  static final int REASON_SCREEN_OFF = 1;
+  // alpha 0
+  static final int REASON_TRANSPARENT = 1 << 1;
+  // the system hides the overlay window
+  static final int REASON_OCCLUDED = 1 << 2;
+  // the view shows an empty line until the next line
+  static final int REASON_EMPTY_LINE = 1 << 3;
+
+  public interface Listener {
+    void onSuspendedChange(boolean isSuspended);
+  }
+
+  private final Listener listener;
+  private int reasons = 0;
+  private long suspendStartTime = 0;
+  private long totalSuspendedTime = 0;
+  private int suspendCount = 0;
+
+  LyricPowerPolicy(Listener listener) {
+    this.listener = listener;
+  }
+
+  public void setReason(int reason, boolean isActive) {
+    boolean isSuspended;
+    synchronized (this) {
+      int prevReasons = reasons;
+      reasons = isActive ? reasons | reason : reasons & ~reason;
+      if ((prevReasons == 0) == (reasons == 0)) return;
+      isSuspended = reasons != 0;
+      long now = SystemClock.uptimeMillis();
+      if (isSuspended) {
+        suspendStartTime = now;
+        suspendCount++;
+      } else {
+        totalSuspendedTime += now - suspendStartTime;
+      }
+    }
+    listener.onSuspendedChange(isSuspended);
+  }
+
+  public synchronized boolean isSuspended() {
+    return reasons != 0;
+  }
+
+  /**
+   * Whether the line timer may be suspended as well
+   */
+  public synchronized boolean isTimerSuspended() {
+    return (reasons & ~REASON_EMPTY_LINE) != 0;
+  }
+
+  public synchronized int getReasons() {
+    return reasons;
+  }
+
+  /**
+   * Time spent suspended in ms, including the current suspension
+   */
+  public synchronized long getSuspendedTime() {
+    if (reasons == 0) return totalSuspendedTime;
+    return totalSuspendedTime + SystemClock.uptimeMillis() - suspendStartTime;
+  }
+
+  public synchronized int getSuspendCount() {
+    return suspendCount;
+  }
+
+  public synchronized void resetStats() {
+    totalSuspendedTime = 0;
+    suspendCount = 0;
+    if (reasons != 0) suspendStartTime = SystemClock.uptimeMillis();
+  }
+}
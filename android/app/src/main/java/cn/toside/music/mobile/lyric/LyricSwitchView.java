@@ -20,23 +20,29 @@ import java.util.ArrayList;
 
 // https://github.com/Block-Network/StatusBarLyric/blob/main/app/src/main/java/statusbar/lyric/view/LyricSwitchView.kt
 @SuppressLint({"ViewConstructor"})
-public final class LyricSwitchView extends TextSwitcher {
-  private final TextView textView;
-  private final TextView textView2;
-  private final ArrayList<TextView> viewArray;
+public final class LyricSwitchView extends TextSwitcher implements LyricDisplayView {
+  private TextView textView;
+  private TextView textView2;
+  private final ArrayList<TextView> viewArray = new ArrayList<>(2);
   // private final boolean isSingleLine;
   private boolean isShowAnima;
 
   private boolean isSingleLine;
+  private boolean isSuspended = false;
+  private OnWindowVisibilityChangeListener windowVisibilityChangeListener = null;
 
   public LyricSwitchView(Context context, boolean isSingleLine, boolean isShowAnima) {
     super(context);
     // this.isSingleLine = isSingleLine;
     this.isShowAnima = isShowAnima;
     this.isSingleLine = isSingleLine;
+    createLines();
+  }
 
+  private void createLines() {
+    Context context = getContext();
+    viewArray.clear();
     if (isSingleLine) {
-      viewArray = new ArrayList<>(2);
       textView = new LyricTextView(context);
       textView2 = new LyricTextView(context);
       viewArray.add(textView);
@@ -45,7 +51,6 @@ public final class LyricSwitchView extends TextSwitcher {
 //        v.setShadowLayer(0.1f, 0, 0, Color.BLACK);
 //      }
     } else {
-      viewArray = new ArrayList<>(2);
       textView = new TextView(context);
       textView2 = new TextView(context);
       viewArray.add(textView);
@@ -58,6 +63,7 @@ public final class LyricSwitchView extends TextSwitcher {
     setAnima();
     this.addView(textView);
     this.addView(textView2);
+    if (isSuspended) setSuspended(true);
   }
 
   @Nullable
@@ -136,6 +142,10 @@ public final class LyricSwitchView extends TextSwitcher {
     setAnima();
   }
 
+  public View getView() {
+    return this;
+  }
+
   public CharSequence getText() {
     View currentView = this.getCurrentView();
     return currentView == null ? "" : ((TextView)currentView).getText();
@@ -155,6 +165,20 @@ public final class LyricSwitchView extends TextSwitcher {
     for (TextView v : viewArray) v.setTextColor(i);
   }
 
+  public void setPlayedColor(int unplayColor, int playedColor) {
+    for (TextView v : viewArray) {
+      if (v instanceof LyricTextView) ((LyricTextView) v).setPlayedColor(unplayColor, playedColor);
+    }
+  }
+
+  /**
+   * Word timing of the current text, only shown in single line mode
+   */
+  public void setWords(LyricDocument document, int lineNum, LyricTextView.TimeSource timeSource) {
+    View currentView = getCurrentView();
+    if (currentView instanceof LyricTextView) ((LyricTextView) currentView).setWords(document, lineNum, timeSource);
+  }
+
   public void setShadowColor(int i) {
     // float radius;
     // if (isSingleLine) {
@@ -182,8 +206,31 @@ public final class LyricSwitchView extends TextSwitcher {
     for (TextView v : viewArray) v.setTypeface(typeface);
   }
 
-  public void setSingleLine(boolean bool) {
-    for (TextView v : viewArray) v.setSingleLine(bool);
+  public void setSuspended(boolean isSuspended) {
+    this.isSuspended = isSuspended;
+    for (TextView v : viewArray) {
+      if (v instanceof LyricTextView) ((LyricTextView) v).setSuspended(isSuspended);
+    }
+  }
+
+  public void setOnWindowVisibilityChangeListener(OnWindowVisibilityChangeListener listener) {
+    windowVisibilityChangeListener = listener;
+  }
+
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    if (windowVisibilityChangeListener != null) windowVisibilityChangeListener.onWindowVisibilityChange(visibility == View.VISIBLE);
+  }
+
+  /**
+   * Replace the two line views in place, the text and style must be set again
+   */
+  public void setSingleLine(boolean isSingleLine) {
+    if (this.isSingleLine == isSingleLine) return;
+    this.isSingleLine = isSingleLine;
+    removeAllViews();
+    createLines();
   }
 
   public void setMaxLines(int i) {
@@ -0,0 +1,45 @@
+package cn.toside.music.mobile.lyric;
+
+/**
+ * ID tags of the lyric header, `[ti:]`, `[ar:]`, `[al:]`, `[by:]` and `[offset:]`
+ */
+public class LyricTags {
+  public static final LyricTags EMPTY = new LyricTags(null, null, null, null, 0);
+
+  private final String title;
+  private final String artist;
+  private final String album;
+  private final String by;
+  private final int offset;
+
+  LyricTags(String title, String artist, String album, String by, int offset) {
+    this.title = title;
+    this.artist = artist;
+    this.album = album;
+    this.by = by;
+    this.offset = offset;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public String getArtist() {
+    return artist;
+  }
+
+  public String getAlbum() {
+    return album;
+  }
+
+  public String getBy() {
+    return by;
+  }
+
+  /**
+   * Offset in ms, positive values show the lines earlier
+   */
+  public int getOffset() {
+    return offset;
+  }
+}
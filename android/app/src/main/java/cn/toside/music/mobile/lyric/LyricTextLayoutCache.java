@@ -0,0 +1,96 @@
+package cn.toside.music.mobile.lyric;
+
+import android.graphics.Paint;
+import android.graphics.Typeface;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Measured widths of recently shown lyric texts, so looping songs and repeated choruses skip measuring.
+ * Each view keeps its own cache for its paint, a paint with another size, typeface or spacing clears it.
+ * Hit and miss counts are summed over all caches.
+ */
+public class LyricTextLayoutCache {
+  private static final int MAX_ENTRY_NUM = 64;
+
+  public static class TextLayout {
+    final String text;
+    final float width;
+    // charOffsets[i] is the width of the first i chars, measured on first use
+    private float[] charOffsets = null;
+
+    TextLayout(String text, float width) {
+      this.text = text;
+      this.width = width;
+    }
+
+    float[] getCharOffsets(Paint paint) {
+      if (charOffsets != null) return charOffsets;
+      int length = text.length();
+      float[] offsets = new float[length + 1];
+      paint.getTextWidths(text, offsets);
+      float offset = 0;
+      for (int i = 0; i < length; i++) {
+        float width = offsets[i];
+        offsets[i] = offset;
+        offset += width;
+      }
+      offsets[length] = offset;
+      charOffsets = offsets;
+      return offsets;
+    }
+  }
+
+  private final LinkedHashMap<String, TextLayout> entries = new LinkedHashMap<String, TextLayout>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest) {
+      return size() > MAX_ENTRY_NUM;
+    }
+  };
+  private float textSize = 0;
+  private Typeface typeface = null;
+  private float letterSpacing = 0;
+  private float textScaleX = 0;
+  private boolean isFakeBoldText = false;
+
+  private static int hitCount = 0;
+  private static int missCount = 0;
+
+  private void checkStyle(Paint paint) {
+    if (paint.getTextSize() == textSize && paint.getTypeface() == typeface && paint.getLetterSpacing() == letterSpacing
+      && paint.getTextScaleX() == textScaleX && paint.isFakeBoldText() == isFakeBoldText) return;
+    entries.clear();
+    textSize = paint.getTextSize();
+    typeface = paint.getTypeface();
+    letterSpacing = paint.getLetterSpacing();
+    textScaleX = paint.getTextScaleX();
+    isFakeBoldText = paint.isFakeBoldText();
+  }
+
+  public TextLayout get(String text, Paint paint) {
+    checkStyle(paint);
+    TextLayout layout = entries.get(text);
+    if (layout != null) {
+      hitCount++;
+      return layout;
+    }
+    missCount++;
+    layout = new TextLayout(text, paint.measureText(text));
+    entries.put(text, layout);
+    return layout;
+  }
+
+  public static int getHitCount() {
+    return hitCount;
+  }
+
+  public static int getMissCount() {
+    return missCount;
+  }
+
+  public static void resetStats() {
+    hitCount = 0;
+    missCount = 0;
+  }
+}
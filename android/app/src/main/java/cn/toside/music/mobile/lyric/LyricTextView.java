@@ -3,35 +3,76 @@ package cn.toside.music.mobile.lyric;
 import android.annotation.SuppressLint;
 import android.content.Context;
 import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.util.Log;
+import android.graphics.Shader;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.widget.TextView;
 
 // https://github.com/Block-Network/StatusBarLyric/blob/main/app/src/main/java/statusbar/lyric/view/LyricTextView.kt
 @SuppressLint("AppCompatCustomView")
 public class LyricTextView extends TextView {
+  public interface TimeSource {
+    /**
+     * @return current lyric time, -1 if not playing
+     */
+    int getPlayTime();
+  }
+
   private boolean isStop = true;
   private float textLength = 0F;
   private float viewWidth = 0F;
   private float viewHeight = 0F;
   private final float SPEED_LIMIT = 0.135F;
+  // px per invalidateDelay
   private float speed;
   private float xx = 0F;
+  // px per ms of the current text
+  private float scrollVelocity = 0F;
+  private long lastScrollFrameTime = 0;
+  private boolean isScrollFrameScheduled = false;
+  private final Choreographer.FrameCallback scrollFrameCallback = this::doScrollFrame;
   private int gravityVertical = Gravity.TOP;
   private int gravityHorizontal = Gravity.CENTER;
   private float y = 0F;
   private String text = null;
+  private LyricTextLayoutCache.TextLayout textLayout = null;
+  private final LyricTextLayoutCache layoutCache = new LyricTextLayoutCache();
   private final Paint mPaint;
+  private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
   private final Runnable mStartScrollRunnable;
-  private final Runnable invalidateRunnable;
   public static final int startScrollDelay = 1500;
   public static final int invalidateDelay = 10;
+  // frames longer than this are treated as a stall, the text does not jump ahead
+  private static final long MAX_SCROLL_FRAME_TIME = 100;
+
+  // word timing (karaoke) progress
+  private LyricDocument wordDocument = null;
+  private int wordLineNum = -1;
+  private TimeSource timeSource = null;
+  private int unplayColor = Color.WHITE;
+  private int playedColor = Color.WHITE;
+  // played color left of x = 0, unplay color right of x = 1, moved to the split by the matrix
+  private Shader playedShader = null;
+  private final Matrix playedShaderMatrix = new Matrix();
+  // charOffsets[i] is the width of the first i chars
+  private float[] charOffsets = null;
+  private boolean isCharOffsetsDirty = true;
+  private float playedWidth = 0;
+  private boolean isProgressFrameScheduled = false;
+  private final Choreographer.FrameCallback progressFrameCallback = frameTimeNanos -> updateProgress();
+  private final LyricFrameStats frameStats = LyricFrameStats.shared;
+  // no frames are requested while suspended or while the window is hidden
+  private boolean isSuspended = false;
+  private boolean isWindowVisible = true;
+  private boolean isRendering = true;
 
   public LyricTextView(Context context) {
     super(context);
     mStartScrollRunnable = LyricTextView.this::startScroll;
-    invalidateRunnable = LyricTextView.this::invalidate;
     mPaint = getPaint();
     speed = SPEED_LIMIT * getTextSize();
   }
@@ -39,19 +80,133 @@ public class LyricTextView extends TextView {
   private void init() {
     xx = 0.0F;
     textLength = getTextLength();
+    // long texts scroll twice as fast
+    scrollVelocity = speed / invalidateDelay;
+    if (text != null && text.length() >= 20) scrollVelocity += scrollVelocity;
     // viewWidth = (float) getWidth();
   }
 
   @Override
   protected void onDetachedFromWindow() {
     removeCallbacks(mStartScrollRunnable);
+    cancelScrollFrame();
+    cancelProgressFrame();
     super.onDetachedFromWindow();
   }
 
+  @Override
+  protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
+    isWindowVisible = visibility == VISIBLE;
+    updateRendering();
+  }
+
+  public void setSuspended(boolean isSuspended) {
+    this.isSuspended = isSuspended;
+    updateRendering();
+  }
+
+  /**
+   * Cancel all frames when the text can not be seen, resuming restarts the marquee and picks up the word progress
+   */
+  private void updateRendering() {
+    boolean isRendering = !isSuspended && isWindowVisible;
+    if (this.isRendering == isRendering) return;
+    this.isRendering = isRendering;
+    removeCallbacks(mStartScrollRunnable);
+    if (!isRendering) {
+      cancelScrollFrame();
+      cancelProgressFrame();
+      return;
+    }
+    if (text == null) return;
+    if (wordDocument != null) scheduleProgressFrame();
+    xx = 0.0F;
+    isStop = true;
+    postInvalidate();
+    postDelayed(mStartScrollRunnable, startScrollDelay);
+  }
+
+  /**
+   * Show the played progress of a line with word timing, the text must be the text of the line
+   */
+  public void setWords(LyricDocument document, int lineNum, TimeSource timeSource) {
+    if (document == null || lineNum < 0 || lineNum >= document.size() || document.getWordCount(lineNum) == 0) {
+      clearWords();
+      return;
+    }
+    wordDocument = document;
+    wordLineNum = lineNum;
+    this.timeSource = timeSource;
+    playedWidth = 0;
+    isCharOffsetsDirty = true;
+    scheduleProgressFrame();
+    invalidate();
+  }
+
+  private void clearWords() {
+    if (wordDocument == null) return;
+    wordDocument = null;
+    wordLineNum = -1;
+    cancelProgressFrame();
+  }
+
+  public void setPlayedColor(int unplayColor, int playedColor) {
+    if (playedShader != null && this.unplayColor == unplayColor && this.playedColor == playedColor) return;
+    this.unplayColor = unplayColor;
+    this.playedColor = playedColor;
+    playedShader = new LinearGradient(0, 0, 1, 0, playedColor, unplayColor, Shader.TileMode.CLAMP);
+    invalidate();
+  }
+
+  private void scheduleProgressFrame() {
+    if (isProgressFrameScheduled || !isRendering) return;
+    isProgressFrameScheduled = true;
+    Choreographer.getInstance().postFrameCallback(progressFrameCallback);
+  }
+
+  private void cancelProgressFrame() {
+    if (!isProgressFrameScheduled) return;
+    isProgressFrameScheduled = false;
+    Choreographer.getInstance().removeFrameCallback(progressFrameCallback);
+  }
+
+  private void updateProgress() {
+    isProgressFrameScheduled = false;
+    if (frameStats.isEnabled()) frameStats.recordWakeup();
+    if (wordDocument == null || timeSource == null || text == null) return;
+    int time = timeSource.getPlayTime();
+    // paused, keep the current progress until the next line is set
+    if (time < 0) return;
+    float playedLength = wordDocument.getPlayedLength(wordLineNum, time);
+    float width = getPlayedWidth(playedLength);
+    if (Math.abs(width - playedWidth) >= 0.5F) {
+      playedWidth = width;
+      invalidate();
+    }
+    if (playedLength < text.length()) scheduleProgressFrame();
+  }
+
+  private void updateCharOffsets() {
+    isCharOffsetsDirty = false;
+    textLength = getTextLength();
+    charOffsets = textLayout.getCharOffsets(mPaint);
+  }
+
+  private float getPlayedWidth(float playedLength) {
+    if (isCharOffsetsDirty) updateCharOffsets();
+    int length = text.length();
+    if (playedLength <= 0) return 0;
+    if (playedLength >= length) return charOffsets[length];
+    int index = (int) playedLength;
+    return charOffsets[index] + (charOffsets[index + 1] - charOffsets[index]) * (playedLength - index);
+  }
+
   @Override
   protected void onTextChanged(CharSequence text, int start, int lengthBefore, int lengthAfter) {
     super.onTextChanged(text, start, lengthBefore, lengthAfter);
     stopScroll();
+    clearWords();
     this.text = text.toString();
     init();
     postInvalidate();
@@ -74,6 +229,7 @@ public class LyricTextView extends TextView {
   public void setTextSize(float size) {
     super.setTextSize(size);
     speed = SPEED_LIMIT * size;
+    isCharOffsetsDirty = true;
     if (text == null) return;
     post(mStartScrollRunnable);
   }
@@ -116,51 +272,83 @@ public class LyricTextView extends TextView {
 
   @Override
   protected void onDraw(Canvas canvas) {
-    float mSpeed = speed;
-    if (text != null) {
-      Log.d("Lyric", "getHeight: " + getHeight() + " y: " + y);
-      canvas.drawText(text, getDrawX(), y, mPaint);
-      if (getText().length() >= 20) {
-        mSpeed += mSpeed;
-      }
+    if (text == null) return;
+    long drawStartTime = frameStats.isEnabled() ? System.nanoTime() : 0;
+    float x = getDrawX();
+    if (wordDocument != null && playedShader != null) {
+      playedShaderMatrix.setTranslate(x + playedWidth, 0);
+      playedShader.setLocalMatrix(playedShaderMatrix);
+      mPaint.setShader(playedShader);
+      canvas.drawText(text, x, y, mPaint);
+      mPaint.setShader(null);
+    } else {
+      canvas.drawText(text, x, y, mPaint);
     }
+    if (drawStartTime != 0) frameStats.recordDraw(System.nanoTime() - drawStartTime);
+  }
 
-    if (!isStop) {
-      if (viewWidth - xx + mSpeed >= textLength) {
-        xx = viewWidth - textLength - 2;
-        stopScroll();
-      } else {
-        xx -= mSpeed;
-      }
-
-      invalidateAfter();
+  /**
+   * Move the text by the time since the last frame, stops asking for frames once the end is visible
+   */
+  private void doScrollFrame(long frameTimeNanos) {
+    isScrollFrameScheduled = false;
+    if (isStop || text == null) return;
+    if (frameStats.isEnabled()) {
+      frameStats.recordWakeup();
+      if (lastScrollFrameTime != 0) frameStats.recordFrameInterval(frameTimeNanos - lastScrollFrameTime);
     }
+    if (textLength < viewWidth) {
+      isStop = true;
+      return;
+    }
+    long frameTime = lastScrollFrameTime == 0 ? 0 : Math.min((frameTimeNanos - lastScrollFrameTime) / 1000000, MAX_SCROLL_FRAME_TIME);
+    lastScrollFrameTime = frameTimeNanos;
+    float distance = scrollVelocity * frameTime;
+    if (viewWidth - xx + distance >= textLength) {
+      xx = viewWidth - textLength - 2;
+      stopScroll();
+      return;
+    }
+    xx -= distance;
+    invalidate();
+    scheduleScrollFrame();
+  }
 
+  private void scheduleScrollFrame() {
+    if (isScrollFrameScheduled || !isRendering) return;
+    isScrollFrameScheduled = true;
+    Choreographer.getInstance().postFrameCallback(scrollFrameCallback);
   }
 
-  private void invalidateAfter() {
-    removeCallbacks(invalidateRunnable);
-    postDelayed(invalidateRunnable, invalidateDelay);
+  private void cancelScrollFrame() {
+    if (!isScrollFrameScheduled) return;
+    isScrollFrameScheduled = false;
+    Choreographer.getInstance().removeFrameCallback(scrollFrameCallback);
   }
 
   private void startScroll() {
     init();
     isStop = false;
+    lastScrollFrameTime = 0;
+    scheduleScrollFrame();
     postInvalidate();
   }
 
   private void stopScroll() {
     isStop = true;
     removeCallbacks(mStartScrollRunnable);
+    cancelScrollFrame();
     postInvalidate();
   }
 
   private float getTextLength() {
-    return mPaint == null ? 0.0F : mPaint.measureText(text);
+    if (mPaint == null || text == null) return 0.0F;
+    textLayout = layoutCache.get(text, mPaint);
+    return textLayout.width;
   }
 
   private float getDrawY() {
-    Paint.FontMetrics fontMetrics = mPaint.getFontMetrics();
+    mPaint.getFontMetrics(fontMetrics);
     float top = fontMetrics.top;
     float bottom = fontMetrics.bottom;
     float ascent = fontMetrics.ascent;
@@ -197,7 +385,6 @@ public class LyricTextView extends TextView {
           x = 0;
           break;
       }
-      isStop = true;
     } else {
       x = xx;
     }
@@ -11,6 +11,8 @@ import android.os.Bundle;
 import android.os.Handler;
 import android.util.DisplayMetrics;
 import android.util.Log;
+import android.os.SystemClock;
+import android.view.Choreographer;
 import android.view.Display;
 import android.view.Gravity;
 import android.view.MotionEvent;
@@ -22,18 +24,20 @@ import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.WritableMap;
 
-import java.util.ArrayList;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Collections;
+import java.util.List;
 
 import cn.toside.music.mobile.R;
 
 public class LyricView extends Activity implements View.OnTouchListener {
-  LyricSwitchView textView = null;
+  LyricDisplayView textView = null;
   WindowManager windowManager = null;
   WindowManager.LayoutParams layoutParams = null;
   final private ReactApplicationContext reactContext;
   final private LyricEvent lyricEvent;
+  final private LyricTextView.TimeSource timeSource;
+  final private LyricPowerPolicy powerPolicy;
+  private boolean isRenderSuspended = false;
 
   // private int winWidth = 0;
 
@@ -53,6 +57,9 @@ public class LyricView extends Activity implements View.OnTouchListener {
   private boolean isLock = false;
   private boolean isSingleLine = false;
   private boolean isShowToggleAnima = false;
+  private boolean isUseLayerRenderer = false;
+  private boolean isUseScrollPanel = false;
+  private boolean isGlyphWarmupEnabled = false;
   private String unplayColor = "rgba(255, 255, 255, 1)";
   private String playedColor = "rgba(7, 197, 86, 1)";
   private String shadowColor = "rgba(0, 0, 0, 0.15)";
@@ -67,7 +74,12 @@ public class LyricView extends Activity implements View.OnTouchListener {
   private int maxLineNum = 5;
   // private float lineHeight = 1;
   private String currentLyric = "LX Music ^-^";
-  private ArrayList<String> currentExtendedLyrics = new ArrayList<>();
+  private List<String> currentExtendedLyrics = Collections.emptyList();
+  private LyricDocument currentDocument = null;
+  private int currentLineNum = -1;
+  // multi line texts of the lines of joinedTextDocument, built on first show
+  private LyricDocument joinedTextDocument = null;
+  private String[] joinedTexts = null;
 
   private int mLastRotation;
   private OrientationEventListener orientationEventListener = null;
@@ -75,9 +87,27 @@ public class LyricView extends Activity implements View.OnTouchListener {
   final Handler fixViewPositionHandler;
   final Runnable fixViewPositionRunnable = this::updateViewPosition;
 
-  LyricView(ReactApplicationContext reactContext, LyricEvent lyricEvent) {
+  // geometry changes of a frame are sent to the window manager in one updateViewLayout
+  private boolean isViewLayoutScheduled = false;
+  private final Choreographer.FrameCallback viewLayoutFrameCallback = frameTimeNanos -> applyViewLayout();
+  private final LyricFrameStats frameStats = LyricFrameStats.shared;
+  private final LyricGlyphWarmup glyphWarmup = new LyricGlyphWarmup();
+  // the first draw of this lyric was requested
+  private LyricDocument firstDrawDocument = null;
+
+  // position events are sent at most once per POSITION_EVENT_INTERVAL, the last position always gets sent
+  private static final int POSITION_EVENT_INTERVAL = 200;
+  private long lastPositionEventTime = 0;
+  private float pendingPositionX = 0;
+  private float pendingPositionY = 0;
+  private boolean isPositionEventScheduled = false;
+  private final Runnable positionEventRunnable = this::handleSendPositionEvent;
+
+  LyricView(ReactApplicationContext reactContext, LyricEvent lyricEvent, LyricTextView.TimeSource timeSource, LyricPowerPolicy powerPolicy) {
     this.reactContext = reactContext;
     this.lyricEvent = lyricEvent;
+    this.timeSource = timeSource;
+    this.powerPolicy = powerPolicy;
     fixViewPositionHandler = new Handler();
   }
 
@@ -93,6 +123,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
             // if (rotation == Surface.ROTATION_90){} // check rotations here
             // if (rotation == Surface.ROTATION_270){} //
             // Log.d("Lyric", "rotation: " + rotation);
+            fixViewPositionHandler.removeCallbacks(fixViewPositionRunnable);
             fixViewPositionHandler.postDelayed(fixViewPositionRunnable, 300);
           }
           mLastRotation = rotation;
@@ -119,6 +150,9 @@ public class LyricView extends Activity implements View.OnTouchListener {
     if (isLock) {
       flag = flag | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE;
     }
+    if (isUseLayerRenderer || isUseScrollPanel) {
+      flag = flag | WindowManager.LayoutParams.FLAG_HARDWARE_ACCELERATED;
+    }
 
     return flag;
   }
@@ -175,13 +209,51 @@ public class LyricView extends Activity implements View.OnTouchListener {
     // Log.d("Lyric", "prevViewPercentageY: " + prevViewPercentageY + "  layoutParams.x: " + layoutParams.x);
     // Log.d("Lyric", "layoutParams.y: " + layoutParams.y + "  layoutParams.width: " + layoutParams.width);
 
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
+  }
+
+  /**
+   * Send layoutParams to the window manager on the next frame, every updateViewLayout is a binder call
+   */
+  private void requestViewLayout() {
+    if (frameStats.isEnabled()) frameStats.recordLayoutRequest();
+    if (isViewLayoutScheduled) return;
+    isViewLayoutScheduled = true;
+    Choreographer.getInstance().postFrameCallback(viewLayoutFrameCallback);
+  }
+
+  private void cancelViewLayout() {
+    if (!isViewLayoutScheduled) return;
+    isViewLayoutScheduled = false;
+    Choreographer.getInstance().removeFrameCallback(viewLayoutFrameCallback);
+  }
+
+  private void applyViewLayout() {
+    isViewLayoutScheduled = false;
+    if (windowManager == null || textView == null) return;
+    if (frameStats.isEnabled()) frameStats.recordLayoutUpdate();
+    windowManager.updateViewLayout(textView.getView(), layoutParams);
   }
 
   public void sendPositionEvent(float x, float y) {
+    pendingPositionX = x;
+    pendingPositionY = y;
+    if (isPositionEventScheduled) return;
+    long delay = lastPositionEventTime + POSITION_EVENT_INTERVAL - SystemClock.uptimeMillis();
+    if (delay <= 0) {
+      handleSendPositionEvent();
+      return;
+    }
+    isPositionEventScheduled = true;
+    fixViewPositionHandler.postDelayed(positionEventRunnable, delay);
+  }
+
+  private void handleSendPositionEvent() {
+    isPositionEventScheduled = false;
+    lastPositionEventTime = SystemClock.uptimeMillis();
     WritableMap params = Arguments.createMap();
-    params.putDouble("x", x);
-    params.putDouble("y", y);
+    params.putDouble("x", pendingPositionX);
+    params.putDouble("y", pendingPositionY);
     lyricEvent.sendEvent(lyricEvent.SET_VIEW_POSITION, params);
   }
 
@@ -233,51 +305,67 @@ public class LyricView extends Activity implements View.OnTouchListener {
     listenOrientationEvent();
   }
   public static int parseColor(String input) {
-    if (input.startsWith("#")) return Color.parseColor(input);
-    Pattern c = Pattern.compile("rgba? *\\( *(\\d+), *(\\d+), *(\\d+)(?:, *([\\d.]+))? *\\)");
-    Matcher m = c.matcher(input);
-    if (m.matches()) {
-      int red = Integer.parseInt(m.group(1));
-      int green = Integer.parseInt(m.group(2));
-      int blue = Integer.parseInt(m.group(3));
-      float a = 1;
-      if (m.group(4) != null) a = Float.parseFloat(m.group(4));
-      return Color.argb((int) (a * 255), red, green, blue);
-    }
-    return Color.parseColor("#000000");
+    return LyricColorParser.shared.parse(input);
   }
 
   private void createTextView() {
-    textView = new LyricSwitchView(reactContext, isSingleLine, isShowToggleAnima);
+    if (isUseScrollPanel) textView = new LyricPanelView(reactContext, isShowToggleAnima);
+    else if (isUseLayerRenderer) textView = new LyricLayerView(reactContext, isSingleLine, isShowToggleAnima);
+    else textView = new LyricSwitchView(reactContext, isSingleLine, isShowToggleAnima);
     textView.setText("");
-    textView.setText(currentLyric);
 
+    applyTextViewStyle();
+    // Log.d("Lyric", "alpha: " + alpha + " text size: " + textSize);
+
+    //监听 OnTouch 事件 为了实现"移动歌词"功能
+    textView.setOnTouchListener(this);
+    LyricDisplayView view = textView;
+    view.setOnWindowVisibilityChangeListener(isVisible -> {
+      // a removed view reports its window gone
+      if (textView != view) return;
+      powerPolicy.setReason(LyricPowerPolicy.REASON_OCCLUDED, !isVisible);
+    });
+    textView.setSuspended(isRenderSuspended);
+    if (frameStats.isEnabled()) frameStats.requestFirstDraw();
+    setLyric(currentLyric, currentExtendedLyrics, currentDocument, currentLineNum);
+  }
+
+  /**
+   * Apply the text settings to the line views of textView
+   */
+  private void applyTextViewStyle() {
     textView.setTextColor(parseColor(playedColor));
+    textView.setPlayedColor(parseColor(unplayColor), parseColor(playedColor));
     textView.setShadowColor(parseColor(shadowColor));
     textView.setAlpha(alpha);
+    textView.setShowAnima(isShowToggleAnima);
     textView.setTextSize(textSize);
-    // Log.d("Lyric", "alpha: " + alpha + " text size: " + textSize);
+    textView.setGravity(getTextGravity());
 
-    //监听 OnTouch 事件 为了实现"移动歌词"功能
-    textView.setOnTouchListener(this);
+    if (!isSingleLine) {
+      textView.setMaxLines(maxLineNum);
+    }
+  }
 
+  private int getTextGravity() {
     int textPositionX;
     int textPositionY;
+    // Log.d("Lyric", "textX: " + textX + "  textY: " + textY);
     switch (textX) {
       case "CENTER":
-        textPositionX = Gravity.CENTER;
+        textPositionX = Gravity.CENTER_HORIZONTAL;
         break;
       case "RIGHT":
         textPositionX = Gravity.END;
         break;
-      case "Left":
+      case "LEFT":
       default:
         textPositionX = Gravity.START;
         break;
     }
     switch (textY) {
       case "CENTER":
-        textPositionY = Gravity.CENTER;
+        textPositionY = Gravity.CENTER_VERTICAL;
         break;
       case "BOTTOM":
         textPositionY = Gravity.BOTTOM;
@@ -287,12 +375,9 @@ public class LyricView extends Activity implements View.OnTouchListener {
         textPositionY = Gravity.TOP;
         break;
     }
-    textView.setGravity(textPositionX | textPositionY);
-
-    if (!isSingleLine) {
-      textView.setMaxLines(maxLineNum);
-    }
+    return textPositionX | textPositionY;
   }
+
   private void handleShowLyric() {
     if (windowManager == null) {
       windowManager = (WindowManager) reactContext.getSystemService(Context.WINDOW_SERVICE);
@@ -304,26 +389,38 @@ public class LyricView extends Activity implements View.OnTouchListener {
       // winWidth = (int)(outMetrics.widthPixels * 0.92);
     }
 
-    // 注意，悬浮窗只有一个，而当打开应用的时候才会产生悬浮窗，所以要判断悬浮窗是否已经存在，
-    if (textView != null) {
-      windowManager.removeView(textView);
-    }
-
-    // 使用Application context
-    // 创建UI控件，避免Activity销毁导致上下文出现问题,因为现在的悬浮窗是系统级别的，不依赖与Activity存在
-    //创建自定义的TextView
-    createTextView();
-
     // layoutParams.type = WindowManager.LayoutParams.TYPE_SYSTEM_ALERT | WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY;
     // layoutParams.type = WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY;
-    layoutParams.type = Build.VERSION.SDK_INT < Build.VERSION_CODES.O ?
+    int type = Build.VERSION.SDK_INT < Build.VERSION_CODES.O ?
       WindowManager.LayoutParams.TYPE_SYSTEM_ALERT :
       WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY;
-
     // layoutParams.flags = isLock
     //  ? WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL | WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE
     //  : WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE | WindowManager.LayoutParams.FLAG_NOT_TOUCH_MODAL;
-    layoutParams.flags = getLayoutParamsFlags();
+    int flags = getLayoutParamsFlags();
+
+    // 注意，悬浮窗只有一个，而当打开应用的时候才会产生悬浮窗，所以要判断悬浮窗是否已经存在，
+    // 已存在的悬浮窗直接更新，只有窗口类型或硬件加速变化时才需要重新添加
+    boolean isAdded = textView != null;
+    if (isAdded && (isRebuildRequired(type, flags) || !isTextViewMatched())) {
+      windowManager.removeView(textView.getView());
+      textView = null;
+      isAdded = false;
+      if (frameStats.isEnabled()) frameStats.recordOverlayRebuild();
+    }
+    if (isAdded) {
+      textView.setSingleLine(isSingleLine);
+      applyTextViewStyle();
+      setLyric(currentLyric, currentExtendedLyrics, currentDocument, currentLineNum);
+    } else {
+      // 使用Application context
+      // 创建UI控件，避免Activity销毁导致上下文出现问题,因为现在的悬浮窗是系统级别的，不依赖与Activity存在
+      //创建自定义的TextView
+      createTextView();
+    }
+
+    layoutParams.type = type;
+    layoutParams.flags = flags;
     if (isLock) {
       textView.setBackgroundColor(Color.TRANSPARENT);
 
@@ -365,30 +462,75 @@ public class LyricView extends Activity implements View.OnTouchListener {
     //设置透明
     layoutParams.format = PixelFormat.TRANSPARENT;
 
+    powerPolicy.setReason(LyricPowerPolicy.REASON_TRANSPARENT, alpha <= 0);
+    if (isAdded) {
+      requestViewLayout();
+      return;
+    }
     //添加到window中
-    windowManager.addView(textView, layoutParams);
+    windowManager.addView(textView.getView(), layoutParams);
+  }
+
+  /**
+   * The view of the window can not be replaced, switching the renderer needs a new window
+   */
+  private boolean isTextViewMatched() {
+    if (isUseScrollPanel) return textView instanceof LyricPanelView;
+    if (isUseLayerRenderer) return textView instanceof LyricLayerView;
+    return textView instanceof LyricSwitchView;
   }
 
-  public void setLyric(String text, ArrayList<String> extendedLyrics) {
+  /**
+   * The window type and hardware acceleration can not be changed on an added window
+   */
+  private boolean isRebuildRequired(int type, int flags) {
+    return layoutParams.type != type
+      || ((layoutParams.flags ^ flags) & WindowManager.LayoutParams.FLAG_HARDWARE_ACCELERATED) != 0;
+  }
+
+  /**
+   * @param document parsed lyric of the line, used for word timing
+   * @param lineNum line of the text, -1 if the text is not a line of the document
+   */
+  public void setLyric(String text, List<String> extendedLyrics, LyricDocument document, int lineNum) {
     if (text.equals("") && text.equals(currentLyric) && extendedLyrics.size() == 0) return;
     currentLyric = text;
     currentExtendedLyrics = extendedLyrics;
+    currentDocument = document;
+    currentLineNum = lineNum;
     if (textView == null) return;
-    if (extendedLyrics.size() > 0 && maxLineNum > 1 && !isSingleLine) {
-      int num = maxLineNum - 1;
-      StringBuilder textBuilder = new StringBuilder(text);
-      for (String lrc : extendedLyrics) {
-        textBuilder.append("\n").append(lrc);
-        if (--num < 1) break;
-      }
-      text = textBuilder.toString();
+    if (document != null && lineNum >= 0 && document != firstDrawDocument) {
+      firstDrawDocument = document;
+      if (frameStats.isEnabled()) frameStats.requestFirstDraw();
     }
-    if (textView == null) return;
+    if (isGlyphWarmupEnabled) glyphWarmup.warmup(document, lineNum, textView.getPaint());
+    if (extendedLyrics.size() > 0 && maxLineNum > 1 && !isSingleLine && !isUseScrollPanel) text = getJoinedText(text, extendedLyrics, document, lineNum);
     textView.setText(text);
+    textView.setWords(document, lineNum, timeSource);
+  }
+
+  private String getJoinedText(String text, List<String> extendedLyrics, LyricDocument document, int lineNum) {
+    boolean isDocumentLine = document != null && lineNum >= 0 && lineNum < document.size();
+    if (isDocumentLine) {
+      if (joinedTextDocument != document) {
+        joinedTextDocument = document;
+        joinedTexts = new String[document.size()];
+      } else if (joinedTexts[lineNum] != null) return joinedTexts[lineNum];
+    }
+    int num = maxLineNum - 1;
+    StringBuilder textBuilder = new StringBuilder(text);
+    for (String lrc : extendedLyrics) {
+      textBuilder.append("\n").append(lrc);
+      if (--num < 1) break;
+    }
+    text = textBuilder.toString();
+    if (isDocumentLine) joinedTexts[lineNum] = text;
+    return text;
   }
 
   public void setMaxLineNum(int maxLineNum) {
     this.maxLineNum = maxLineNum;
+    joinedTextDocument = null;
     if (textView == null) return;
     if (!isSingleLine) textView.setMaxLines(maxLineNum);
     setLayoutParamsHeight();
@@ -399,7 +541,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
     else if (y > maxY) y = maxY;
     if (layoutParams.y != y) layoutParams.y = y;
 
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
   }
 
   public void setWidth(int width) {
@@ -414,7 +556,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
     else if (x > maxX) x = maxX;
     if (layoutParams.x != x) layoutParams.x = x;
 
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
   }
 
   @Override
@@ -452,7 +594,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
         layoutParams.x = x;
         layoutParams.y = y;
         //更新悬浮窗位置
-        windowManager.updateViewLayout(textView, layoutParams);
+        requestViewLayout();
         //记录当前坐标作为下一次计算的上一次移动的位置坐标
         lastX = nowX;
         lastY = nowY;
@@ -497,7 +639,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
       layoutParams.alpha = 0.8f;
     }
     textView.setBackgroundColor(Color.TRANSPARENT);
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
   }
 
   public void unlockView() {
@@ -509,7 +651,7 @@ public class LyricView extends Activity implements View.OnTouchListener {
       layoutParams.alpha = 1.0f;
     }
     textView.setBackgroundResource(R.drawable.rounded_corner);
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
   }
 
   public void setColor(String unplayColor, String playedColor, String shadowColor) {
@@ -518,66 +660,72 @@ public class LyricView extends Activity implements View.OnTouchListener {
     this.shadowColor = shadowColor;
     if (textView == null) return;
     textView.setTextColor(parseColor(playedColor));
+    textView.setPlayedColor(parseColor(unplayColor), parseColor(playedColor));
     textView.setShadowColor(parseColor(shadowColor));
-    // windowManager.updateViewLayout(textView, layoutParams);
+    // windowManager.updateViewLayout(textView.getView(), layoutParams);
   }
 
   public void setLyricTextPosition(String textX, String textY) {
     this.textX = textX;
     this.textY = textY;
     if (windowManager == null || textView == null) return;
-    int textPositionX;
-    int textPositionY;
-    // Log.d("Lyric", "textX: " + textX + "  textY: " + textY);
-    switch (textX) {
-      case "CENTER":
-        textPositionX = Gravity.CENTER_HORIZONTAL;
-        break;
-      case "RIGHT":
-        textPositionX = Gravity.END;
-        break;
-      case "LEFT":
-      default:
-        textPositionX = Gravity.START;
-        break;
-    }
-    switch (textY) {
-      case "CENTER":
-        textPositionY = Gravity.CENTER_VERTICAL;
-        break;
-      case "BOTTOM":
-        textPositionY = Gravity.BOTTOM;
-        break;
-      case "TOP":
-      default:
-        textPositionY = Gravity.TOP;
-        break;
-    }
-    textView.setGravity(textPositionX | textPositionY);
-    windowManager.updateViewLayout(textView, layoutParams);
+    textView.setGravity(getTextGravity());
   }
 
   public void setAlpha(float alpha) {
     this.alpha = alpha;
     if (textView == null) return;
     textView.setAlpha(alpha);
+    powerPolicy.setReason(LyricPowerPolicy.REASON_TRANSPARENT, alpha <= 0);
+  }
+
+  /**
+   * Stop the animations of the lyric text while nobody can see it, lyric lines are not set while suspended
+   */
+  public void setRenderSuspended(boolean isSuspended) {
+    isRenderSuspended = isSuspended;
+    if (textView == null) return;
+    textView.setSuspended(isSuspended);
   }
 
   public void setSingleLine(boolean isSingleLine) {
+    if (this.isSingleLine == isSingleLine) return;
     this.isSingleLine = isSingleLine;
     if (textView == null) return;
-    windowManager.removeView(textView);
-    createTextView();
+    textView.setSingleLine(isSingleLine);
+    applyTextViewStyle();
     textView.setWidth(layoutParams.width);
     textView.setHeight(layoutParams.height);
-    windowManager.addView(textView, layoutParams);
+    setLyric(currentLyric, currentExtendedLyrics, currentDocument, currentLineNum);
+  }
 
-    if (isLock) lockView();
-    else unlockView();
+  public void setUseLayerRenderer(boolean isUseLayerRenderer) {
+    if (this.isUseLayerRenderer == isUseLayerRenderer) return;
+    this.isUseLayerRenderer = isUseLayerRenderer;
+    if (textView == null) return;
+    // hardware acceleration of a window is fixed once it is added
+    handleShowLyric();
+  }
+  /**
+   * Show the previous and upcoming lines in a scrolling panel
+   */
+  public void setUseScrollPanel(boolean isUseScrollPanel) {
+    if (this.isUseScrollPanel == isUseScrollPanel) return;
+    this.isUseScrollPanel = isUseScrollPanel;
+    if (textView == null) return;
+    handleShowLyric();
+  }
 
-    setLyric(currentLyric, currentExtendedLyrics);
+  /**
+   * Shape and rasterize the glyphs of the upcoming lines on a background thread before they are shown
+   */
+  public void setGlyphWarmupEnabled(boolean isEnabled) {
+    isGlyphWarmupEnabled = isEnabled;
+    if (!isEnabled || textView == null) return;
+    glyphWarmup.warmup(currentDocument, currentLineNum, textView.getPaint());
   }
 
+
   public void setShowToggleAnima(boolean showToggleAnima) {
     isShowToggleAnima = showToggleAnima;
     if (textView == null) return;
@@ -589,14 +737,21 @@ public class LyricView extends Activity implements View.OnTouchListener {
     if (windowManager == null || textView == null) return;
     textView.setTextSize(size);
     setLayoutParamsHeight();
-    windowManager.updateViewLayout(textView, layoutParams);
+    requestViewLayout();
   }
 
   public void destroyView() {
     if (textView == null || windowManager == null) return;
-    windowManager.removeView(textView);
+    cancelViewLayout();
+    if (isPositionEventScheduled) {
+      fixViewPositionHandler.removeCallbacks(positionEventRunnable);
+      handleSendPositionEvent();
+    }
+    windowManager.removeView(textView.getView());
     textView = null;
     removeOrientationEvent();
+    powerPolicy.setReason(LyricPowerPolicy.REASON_TRANSPARENT, false);
+    powerPolicy.setReason(LyricPowerPolicy.REASON_OCCLUDED, false);
   }
 
   public void destroy() {
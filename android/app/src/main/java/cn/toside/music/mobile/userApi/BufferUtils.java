@@ -0,0 +1,52 @@
+package cn.toside.music.mobile.userApi;
+
+import android.util.Base64;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte conversions of the script buffer utils, bytes are passed to QuickJS as ArrayBuffer
+ */
+public class BufferUtils {
+  private static final char[] HEX_CHARS = "0123456789abcdef".toCharArray();
+
+  public static byte[] b642buf(String input) {
+    return Base64.decode(input.getBytes(StandardCharsets.UTF_8), Base64.NO_WRAP);
+  }
+
+  public static String buf2b64(byte[] buf) {
+    return Base64.encodeToString(buf, Base64.NO_WRAP);
+  }
+
+  public static String buf2hex(byte[] buf) {
+    char[] chars = new char[buf.length * 2];
+    for (int i = 0; i < buf.length; i++) {
+      chars[i * 2] = HEX_CHARS[(buf[i] >> 4) & 0xf];
+      chars[i * 2 + 1] = HEX_CHARS[buf[i] & 0xf];
+    }
+    return new String(chars);
+  }
+
+  private static int hexDigit(char c) {
+    if (c >= '0' && c <= '9') return c - '0';
+    if (c >= 'a' && c <= 'f') return c - 'a' + 10;
+    if (c >= 'A' && c <= 'F') return c - 'A' + 10;
+    return -1;
+  }
+
+  /**
+   * Every two chars are parsed like parseInt(chars, 16) of the script implementation,
+   * the leading hex digits are used and a pair without one is 0
+   */
+  public static byte[] hex2buf(String hex) {
+    int length = hex.length();
+    byte[] buf = new byte[(length + 1) / 2];
+    for (int i = 0; i < buf.length; i++) {
+      int high = hexDigit(hex.charAt(i * 2));
+      if (high < 0) continue;
+      int low = i * 2 + 1 < length ? hexDigit(hex.charAt(i * 2 + 1)) : -1;
+      buf[i] = (byte) (low < 0 ? high : (high << 4) | low);
+    }
+    return buf;
+  }
+}
@@ -12,6 +12,7 @@ import com.facebook.react.bridge.ReactApplicationContext;
 
 public class JavaScriptThread extends HandlerThread {
   private Handler handler;
+  private JsHandler eventHandler;
   private QuickJS javaScriptExecutor;
   private final ReactApplicationContext reactContext;
   private final Bundle scriptInfo;
@@ -22,12 +23,14 @@ public class JavaScriptThread extends HandlerThread {
     this.scriptInfo = info;
   }
 
-  public void prepareHandler(final Handler mainHandler) {
+  public void prepareHandler(final JsHandler mainHandler) {
+    this.eventHandler = mainHandler;
     start();
     Log.d("UserApi [thread]", "running 2");
     this.handler = new Handler(getLooper()) {
       @Override
       public void handleMessage(@NonNull Message message) {
+        if (message.what == HandlerWhat.DESTROY && javaScriptExecutor == null) return;
         if (javaScriptExecutor == null) {
           javaScriptExecutor = new QuickJS(reactContext, mainHandler);
           Log.d("UserApi [thread]", "javaScript executor created");
@@ -64,7 +67,16 @@ public class JavaScriptThread extends HandlerThread {
     return this.handler;
   }
 
+  public JsHandler getEventHandler() {
+    return this.eventHandler;
+  }
+
+  public Bundle getScriptInfo() {
+    return this.scriptInfo;
+  }
+
   public void stopThread() {
-    quit();
+    // let the queued destroy message release the context
+    quitSafely();
   }
 }
@@ -7,18 +7,38 @@ import android.util.Log;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableMap;
 
+import org.json.JSONObject;
+
 import java.util.Objects;
 
 public class JsHandler extends Handler {
   private final UtilsEvent utilsEvent;
+  private final String sourceId;
+  // data of the successful init action, sent again when the loaded script is reused
+  private volatile String initData = null;
 
-  JsHandler(Looper looper, UtilsEvent utilsEvent) {
+  JsHandler(Looper looper, UtilsEvent utilsEvent, String sourceId) {
     super(looper);
     this.utilsEvent = utilsEvent;
+    this.sourceId = sourceId;
+  }
+
+  public boolean isInitSuccess() {
+    return initData != null;
+  }
+
+  /**
+   * Send the init action of the loaded script again
+   */
+  public void resendInitEvent() {
+    String data = initData;
+    if (data == null) return;
+    post(() -> sendActionEvent("init", data));
   }
 
   private void sendInitFailedEvent(String errorMessage) {
     WritableMap params = Arguments.createMap();
+    params.putString("id", sourceId);
     params.putString("action", "init");
     params.putString("errorMessage", errorMessage);
     params.putString("data", "{ \"info\": null, \"status\": false, \"errorMessage\": \"Create JavaScript Env Failed\" }");
@@ -28,6 +48,7 @@ public class JsHandler extends Handler {
 
   private void sendLogEvent(Object[] data) {
     WritableMap params = Arguments.createMap();
+    params.putString("id", sourceId);
     params.putString("action", "log");
     params.putString("type", (String) data[0]);
     params.putString("log", (String) data[1]);
@@ -35,12 +56,22 @@ public class JsHandler extends Handler {
   }
 
   private void sendActionEvent(String action, String data) {
+    if ("init".equals(action) && isStatusSuccess(data)) initData = data;
     WritableMap params = Arguments.createMap();
+    params.putString("id", sourceId);
     params.putString("action", action);
     params.putString("data", data);
     this.utilsEvent.sendEvent(utilsEvent.API_ACTION, params);
   }
 
+  private static boolean isStatusSuccess(String data) {
+    try {
+      return new JSONObject(data).optBoolean("status");
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
   @Override
   public void handleMessage(Message msg) {
     switch (msg.what) {
@@ -7,6 +7,7 @@ import android.os.Message;
 import android.util.Base64;
 import android.util.Log;
 import cn.toside.music.mobile.crypto.AES;
+import cn.toside.music.mobile.crypto.Hash;
 import cn.toside.music.mobile.crypto.RSA;
 import com.facebook.react.bridge.ReactApplicationContext;
 
@@ -15,7 +16,7 @@ import com.whl.quickjs.wrapper.QuickJSContext;
 import java.io.InputStream;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
+import java.util.HashMap;
 import java.util.UUID;
 
 public class QuickJS {
@@ -26,6 +27,10 @@ public class QuickJS {
   private QuickJSContext jsContext = null;
   final Handler timeoutHandler = new Handler();
   private boolean inited = false;
+  // native http requests of the script, only used on the script thread
+  private final HashMap<String, UserApiHttp.Request> httpRequests = new HashMap<>();
+  // message of the last failed util binding, read once by utils_error
+  private String utilsErrorMessage = null;
 
   public QuickJS(ReactApplicationContext context, Handler eventHandler) {
     this.reactContext = context;
@@ -39,18 +44,40 @@ public class QuickJS {
     this.isInited = true;
   }
 
-  private String getPreloadScript() {
+  private static String preloadScript = null;
+
+  private synchronized static String getPreloadScript(ReactApplicationContext reactContext) {
+    if (preloadScript != null) return preloadScript;
     try {
-      InputStream inputStream = this.reactContext.getAssets().open("script/user-api-preload.js");
+      InputStream inputStream = reactContext.getAssets().open("script/user-api-preload.js");
       byte[] buffer = new byte[inputStream.available()];
       inputStream.read(buffer);
       inputStream.close();
-      return new String(buffer, StandardCharsets.UTF_8);
+      preloadScript = new String(buffer, StandardCharsets.UTF_8);
+      return preloadScript;
     } catch (Exception e) {
       return null;
     }
   }
 
+  /**
+   * Bytes of a script argument, strings are UTF-8 encoded
+   */
+  private static byte[] toBytes(Object data) {
+    if (data instanceof byte[]) return (byte[]) data;
+    if (data instanceof String) return ((String) data).getBytes(StandardCharsets.UTF_8);
+    throw new IllegalArgumentException("Invalid data type: " + (data == null ? null : data.getClass().getSimpleName()));
+  }
+
+  /**
+   * Log the error of a util binding and keep its message for utils_error, the script throws it on the null result
+   */
+  private Object handleUtilsError(String name, Exception e) {
+    utilsErrorMessage = e.getMessage() == null ? e.toString() : e.getMessage();
+    Log.e("UserApi [utils]", name + " error: " + utilsErrorMessage);
+    return null;
+  }
+
   private void createEnvObj(QuickJSContext jsContext) {
     jsContext.getGlobalObject().setProperty("__lx_native_call__", args -> {
       if (this.key.equals(args[0])) {
@@ -67,21 +94,37 @@ public class QuickJS {
         return "";
       }
     });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_error", args -> {
+      String message = utilsErrorMessage;
+      utilsErrorMessage = null;
+      return message;
+    });
     jsContext.getGlobalObject().setProperty("__lx_native_call__utils_b642buf", args -> {
       try {
-        byte[] byteArray = Base64.decode(((String) args[0]).getBytes(StandardCharsets.UTF_8), Base64.NO_WRAP);
-        StringBuilder jsonArrayString = new StringBuilder("[");
-        for (int i = 0; i < byteArray.length; i++) {
-          jsonArrayString.append((int) byteArray[i]);
-          if (i < byteArray.length - 1) {
-            jsonArrayString.append(",");
-          }
-        }
-        jsonArrayString.append("]");
-        return jsonArrayString.toString();
+        return BufferUtils.b642buf((String) args[0]);
       } catch (Exception e) {
-        Log.e("UserApi [utils]", "utils_b642buf error: " + e.getMessage());
-        return "";
+        return handleUtilsError("utils_b642buf", e);
+      }
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_buf2b64", args -> {
+      try {
+        return BufferUtils.buf2b64((byte[]) args[0]);
+      } catch (Exception e) {
+        return handleUtilsError("utils_buf2b64", e);
+      }
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_buf2hex", args -> {
+      try {
+        return BufferUtils.buf2hex((byte[]) args[0]);
+      } catch (Exception e) {
+        return handleUtilsError("utils_buf2hex", e);
+      }
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_hex2buf", args -> {
+      try {
+        return BufferUtils.hex2buf((String) args[0]);
+      } catch (Exception e) {
+        return handleUtilsError("utils_hex2buf", e);
       }
     });
     jsContext.getGlobalObject().setProperty("__lx_native_call__utils_str2md5", args -> {
@@ -94,18 +137,33 @@ public class QuickJS {
           str = URLDecoder.decode((String) args[0], "UTF-8");
         }
         // Log.d("UserApi [script call]", "utils_str2md5: " + str);
-        MessageDigest md = MessageDigest.getInstance("MD5");
-        byte[] md5Bytes = md.digest(str.getBytes(StandardCharsets.UTF_8));
-        StringBuilder md5String = new StringBuilder();
-        for (byte b : md5Bytes) {
-          md5String.append(String.format("%02x", b));
-        }
-        return md5String.toString();
+        return BufferUtils.buf2hex(Hash.digest("MD5", str.getBytes(StandardCharsets.UTF_8)));
       } catch (Exception e) {
         Log.e("UserApi [utils]", "utils_str2md5 error: " + e.getMessage());
         return "";
       }
     });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_sha1", args -> {
+      try {
+        return BufferUtils.buf2hex(Hash.digest("SHA-1", toBytes(args[0])));
+      } catch (Exception e) {
+        return handleUtilsError("utils_sha1", e);
+      }
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_sha256", args -> {
+      try {
+        return BufferUtils.buf2hex(Hash.digest("SHA-256", toBytes(args[0])));
+      } catch (Exception e) {
+        return handleUtilsError("utils_sha256", e);
+      }
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_hmac", args -> {
+      try {
+        return BufferUtils.buf2hex(Hash.hmac((String) args[0], toBytes(args[1]), toBytes(args[2])));
+      } catch (Exception e) {
+        return handleUtilsError("utils_hmac", e);
+      }
+    });
     jsContext.getGlobalObject().setProperty("__lx_native_call__utils_aes_encrypt", args -> {
       try {
         return AES.encrypt((String) args[0], (String) args[1], (String) args[2], (String) args[3]);
@@ -114,6 +172,13 @@ public class QuickJS {
         return "";
       }
     });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__utils_aes_decrypt", args -> {
+      try {
+        return AES.decryptToBytes(toBytes(args[0]), toBytes(args[1]), toBytes(args[2]), (String) args[3]);
+      } catch (Exception e) {
+        return handleUtilsError("utils_aes_decrypt", e);
+      }
+    });
     jsContext.getGlobalObject().setProperty("__lx_native_call__utils_rsa_encrypt", args -> {
       try {
         return RSA.encryptRSAToString((String) args[0], (String) args[1], (String) args[2]);
@@ -122,6 +187,18 @@ public class QuickJS {
         return "";
       }
     });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__http_request", args -> {
+      UserApiHttp http = UserApiHttp.shared;
+      if (!http.isEnabled()) return false;
+      String requestKey = (String) args[0];
+      httpRequests.put(requestKey, http.execute(requestKey, (String) args[1], (String) args[2], this.timeoutHandler, this::handleHttpResponse));
+      return true;
+    });
+    jsContext.getGlobalObject().setProperty("__lx_native_call__http_cancel", args -> {
+      UserApiHttp.Request request = httpRequests.get((String) args[0]);
+      if (request != null) UserApiHttp.shared.cancel(request);
+      return null;
+    });
     jsContext.getGlobalObject().setProperty("__lx_native_call__set_timeout", args -> {
       this.timeoutHandler.postDelayed(() -> {
         callJS("__set_timeout__", args[0]);
@@ -136,10 +213,10 @@ public class QuickJS {
     if (quickJSContext != null) quickJSContext.destroy();
     this.jsContext = QuickJSContext.create();
     this.jsContext.setConsole(new Console(this.eventHandler));
-    String preloadScript = getPreloadScript();
+    String preloadScript = getPreloadScript(this.reactContext);
     if (preloadScript == null) return false;
     createEnvObj(this.jsContext);
-    this.jsContext.evaluate(preloadScript);
+    ScriptBytecodeCache.getInstance(this.reactContext).evaluate(this.jsContext, preloadScript);
     this.jsContext.getGlobalObject().getJSFunction("lx_setup").call(this.key, id, name, desc, version, author, homepage, rawScript);
     return true;
   }
@@ -156,6 +233,11 @@ public class QuickJS {
     this.eventHandler.sendMessage(message);
   }
 
+  private void handleHttpResponse(String requestKey, String result) {
+    if (httpRequests.remove(requestKey) == null || this.jsContext == null) return;
+    callJS("http_response", result);
+  }
+
   public String loadScript(Bundle scriptInfo) {
     Log.d("UserApi", "UserApi Thread id: " + Thread.currentThread().getId());
     String script = scriptInfo.getString("script", "");
@@ -167,7 +249,7 @@ public class QuickJS {
       scriptInfo.getString("homepage", ""),
       script)) {
       try {
-        this.jsContext.evaluate(script);
+        ScriptBytecodeCache.getInstance(this.reactContext).evaluate(this.jsContext, script);
         return "";
       } catch (Exception e) {
         Log.e("UserApi", "load script error: " + e.getMessage());
@@ -214,6 +296,8 @@ public class QuickJS {
   }
 
   public void destroy () {
+    for (UserApiHttp.Request request : httpRequests.values()) UserApiHttp.shared.cancel(request);
+    httpRequests.clear();
     this.jsContext.destroy();
     this.jsContext = null;
   }
@@ -0,0 +1,185 @@
+package cn.toside.music.mobile.userApi;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.whl.quickjs.wrapper.QuickJSContext;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import cn.toside.music.mobile.BuildConfig;
+
+/**
+ * Compiled QuickJS bytecode of the scripts, stored in the cache dir and keyed by the script content and the engine version.
+ * A file that can not be read or fails its checksum is deleted and the script is compiled from source again.
+ */
+public class ScriptBytecodeCache {
+  // bytecode is only readable by the QuickJS build that wrote it, QUICKJS_VERSION is the version of the wrapper dependency
+  static final String ENGINE_VERSION = "quickjs-wrapper-" + BuildConfig.QUICKJS_VERSION + "-" + BuildConfig.VERSION_CODE;
+  static final int MAX_FILE_NUM = 16;
+  private static final int MAGIC = 0x4c584243;
+  private static final String DIR_NAME = "user-api-bytecode";
+  private static ScriptBytecodeCache instance = null;
+
+  private final File dir;
+  private int hitCount = 0;
+  private int missCount = 0;
+  private int errorCount = 0;
+  private long totalHitLoadTime = 0;
+  private long totalMissLoadTime = 0;
+
+  private ScriptBytecodeCache(File dir) {
+    this.dir = dir;
+  }
+
+  public static synchronized ScriptBytecodeCache getInstance(Context context) {
+    if (instance == null) instance = new ScriptBytecodeCache(new File(context.getCacheDir(), DIR_NAME));
+    return instance;
+  }
+
+  /**
+   * Run the script, from the cached bytecode if there is one, errors of the script are thrown like evaluate
+   */
+  public Object evaluate(QuickJSContext jsContext, String script) {
+    long startTime = System.nanoTime();
+    String key = getKey(ENGINE_VERSION, script);
+    byte[] bytecode = key == null ? null : read(key);
+    if (bytecode != null) {
+      try {
+        return jsContext.execute(bytecode);
+      } finally {
+        recordLoad(true, System.nanoTime() - startTime);
+      }
+    }
+    try {
+      bytecode = jsContext.compile(script);
+    } catch (Exception e) {
+      // let evaluate throw the syntax error
+      return jsContext.evaluate(script);
+    }
+    if (key != null) write(key, bytecode);
+    try {
+      return jsContext.execute(bytecode);
+    } finally {
+      recordLoad(false, System.nanoTime() - startTime);
+    }
+  }
+
+  static String getKey(String engineVersion, String script) {
+    try {
+      MessageDigest md = MessageDigest.getInstance("SHA-256");
+      md.update(engineVersion.getBytes(StandardCharsets.UTF_8));
+      md.update((byte) 0);
+      return BufferUtils.buf2hex(md.digest(script.getBytes(StandardCharsets.UTF_8)));
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  private static long getChecksum(byte[] bytecode) {
+    CRC32 crc = new CRC32();
+    crc.update(bytecode);
+    return crc.getValue();
+  }
+
+  private synchronized byte[] read(String key) {
+    File file = new File(dir, key);
+    if (!file.isFile()) return null;
+    try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+      int length;
+      long checksum;
+      if (input.readInt() != MAGIC || (length = input.readInt()) < 0 || length > file.length()) throw new Exception("invalid header");
+      checksum = input.readLong();
+      byte[] bytecode = new byte[length];
+      input.readFully(bytecode);
+      if (getChecksum(bytecode) != checksum) throw new Exception("checksum mismatch");
+      file.setLastModified(System.currentTimeMillis());
+      return bytecode;
+    } catch (Exception e) {
+      Log.w("UserApi", "bytecode cache read failed: " + e.getMessage());
+      errorCount++;
+      file.delete();
+      return null;
+    }
+  }
+
+  private synchronized void write(String key, byte[] bytecode) {
+    if (!dir.isDirectory() && !dir.mkdirs()) return;
+    File tempFile = new File(dir, key + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(new FileOutputStream(tempFile))) {
+      output.writeInt(MAGIC);
+      output.writeInt(bytecode.length);
+      output.writeLong(getChecksum(bytecode));
+      output.write(bytecode);
+    } catch (Exception e) {
+      Log.w("UserApi", "bytecode cache write failed: " + e.getMessage());
+      tempFile.delete();
+      return;
+    }
+    if (!tempFile.renameTo(new File(dir, key))) tempFile.delete();
+    trimToSize();
+  }
+
+  private void trimToSize() {
+    File[] files = dir.listFiles();
+    if (files == null || files.length <= MAX_FILE_NUM) return;
+    Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+    for (int i = 0; i < files.length - MAX_FILE_NUM; i++) files[i].delete();
+  }
+
+  private synchronized void recordLoad(boolean isHit, long loadTime) {
+    if (isHit) {
+      hitCount++;
+      totalHitLoadTime += loadTime;
+    } else {
+      missCount++;
+      totalMissLoadTime += loadTime;
+    }
+    Log.d("UserApi", "script loaded " + (isHit ? "from bytecode cache" : "from source") + " in " + loadTime / 1000000 + "ms");
+  }
+
+  public synchronized int getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized int getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Cache files that could not be read and were deleted
+   */
+  public synchronized int getErrorCount() {
+    return errorCount;
+  }
+
+  /**
+   * Average time in ns to run a script from the cached bytecode
+   */
+  public synchronized double getAverageHitLoadTime() {
+    return hitCount == 0 ? 0 : (double) totalHitLoadTime / hitCount;
+  }
+
+  /**
+   * Average time in ns to compile and run a script from source
+   */
+  public synchronized double getAverageMissLoadTime() {
+    return missCount == 0 ? 0 : (double) totalMissLoadTime / missCount;
+  }
+
+  public synchronized void resetStats() {
+    hitCount = 0;
+    missCount = 0;
+    errorCount = 0;
+    totalHitLoadTime = 0;
+    totalMissLoadTime = 0;
+  }
+}
@@ -0,0 +1,256 @@
+package cn.toside.music.mobile.userApi;
+
+import android.os.Handler;
+import android.util.Base64;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.facebook.react.modules.network.OkHttpClientProvider;
+
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import okhttp3.Call;
+import okhttp3.CookieJar;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Runs the http requests of the scripts on the RN OkHttp client, the response is posted back to the script thread
+ * without a round trip through the RN bridge. The connection pool and dispatcher are shared with the RN fetch,
+ * and like the RN request of the scripts, which sends `credentials: 'omit'`, no cookies are stored or sent.
+ */
+public class UserApiHttp {
+  public static final UserApiHttp shared = new UserApiHttp();
+
+  static final int DEFAULT_TIMEOUT = 13000;
+  static final int MAX_BODY_SIZE = 20 * 1024 * 1024;
+
+  public interface Callback {
+    /**
+     * Called on the handler thread
+     * @param result JSON of the requestKey, error, response and binary fields
+     */
+    void onResponse(String requestKey, String result);
+  }
+
+  public static class Request {
+    final String requestKey;
+    private volatile Call call = null;
+    private volatile boolean isCanceled = false;
+
+    Request(String requestKey) {
+      this.requestKey = requestKey;
+    }
+  }
+
+  // off until the app turns it on, requests go through the RN request until then
+  private volatile boolean isEnabled = false;
+  private OkHttpClient client = null;
+
+  public boolean isEnabled() {
+    return isEnabled;
+  }
+
+  /**
+   * Disabled requests go through the RN JS thread again
+   */
+  public void setEnabled(boolean isEnabled) {
+    this.isEnabled = isEnabled;
+  }
+
+  private synchronized OkHttpClient getClient() {
+    if (client == null) {
+      client = OkHttpClientProvider.getOkHttpClient().newBuilder()
+        .cookieJar(CookieJar.NO_COOKIES)
+        .build();
+    }
+    return client;
+  }
+
+  /**
+   * @param options JSON of method, headers, body, formData, timeout and binary, prepared by the preload script
+   */
+  public Request execute(String requestKey, String url, String options, Handler handler, Callback callback) {
+    Request request = new Request(requestKey);
+    JSONObject optionsObj;
+    okhttp3.Request httpRequest;
+    try {
+      optionsObj = new JSONObject(options);
+      httpRequest = buildRequest(url, optionsObj);
+    } catch (Exception e) {
+      String result = buildResult(request, false, null, e);
+      handler.post(() -> callback.onResponse(requestKey, result));
+      return request;
+    }
+    boolean isBinary = optionsObj.optBoolean("binary");
+    Call call = getClient().newCall(httpRequest);
+    // the timeout covers the whole request like the abort timer of the RN request
+    call.timeout().timeout(optionsObj.optInt("timeout", DEFAULT_TIMEOUT), TimeUnit.MILLISECONDS);
+    request.call = call;
+    call.enqueue(new okhttp3.Callback() {
+      @Override
+      public void onFailure(@NonNull Call call, @NonNull IOException e) {
+        String result = buildResult(request, isBinary, null, e);
+        handler.post(() -> callback.onResponse(requestKey, result));
+      }
+
+      @Override
+      public void onResponse(@NonNull Call call, @NonNull Response response) {
+        String result;
+        try (Response resp = response) {
+          result = buildResult(request, isBinary, readResponse(resp, isBinary), null);
+        } catch (Exception e) {
+          result = buildResult(request, isBinary, null, e);
+        }
+        String requestResult = result;
+        handler.post(() -> callback.onResponse(requestKey, requestResult));
+      }
+    });
+    return request;
+  }
+
+  /**
+   * The request responds with an error if it is not done yet
+   */
+  public void cancel(Request request) {
+    request.isCanceled = true;
+    Call call = request.call;
+    if (call != null) call.cancel();
+  }
+
+  private static String buildResult(Request request, boolean isBinary, JSONObject response, Exception error) {
+    JSONObject result = new JSONObject();
+    try {
+      result.put("requestKey", request.requestKey);
+      result.put("binary", isBinary);
+      if (error == null) {
+        result.put("response", response);
+        result.put("error", JSONObject.NULL);
+      } else {
+        String message = request.isCanceled ? "Aborted"
+          : error instanceof InterruptedIOException ? "request timeout"
+          : error.getMessage();
+        Log.d("UserApi [http]", "request failed: " + message);
+        result.put("error", message == null ? error.toString() : message);
+        result.put("response", JSONObject.NULL);
+      }
+    } catch (Exception ignored) {}
+    return result.toString();
+  }
+
+  private static okhttp3.Request buildRequest(String url, JSONObject options) throws Exception {
+    String method = options.optString("method", "GET").toUpperCase(Locale.ROOT);
+    okhttp3.Request.Builder builder = new okhttp3.Request.Builder().url(url);
+    String contentType = null;
+    JSONObject headers = options.optJSONObject("headers");
+    if (headers != null) {
+      for (Iterator<String> it = headers.keys(); it.hasNext(); ) {
+        String name = it.next();
+        String value = headers.optString(name);
+        if ("content-type".equalsIgnoreCase(name)) contentType = value;
+        builder.header(name, value);
+      }
+    }
+
+    byte[] body = null;
+    JSONObject formData = options.optJSONObject("formData");
+    if (formData != null) {
+      String boundary = "----LxFormBoundary" + UUID.randomUUID().toString().replace("-", "");
+      contentType = "multipart/form-data; boundary=" + boundary;
+      builder.header("Content-Type", contentType);
+      body = buildMultipartBody(formData, boundary);
+    } else if (!options.isNull("body")) {
+      body = options.optString("body").getBytes(StandardCharsets.UTF_8);
+    }
+    // OkHttp rejects a body on GET and HEAD and requires one on POST, PUT and PATCH
+    if (body == null ? isBodyRequired(method) : !method.equals("GET") && !method.equals("HEAD")) {
+      MediaType mediaType = contentType == null ? null : MediaType.parse(contentType);
+      builder.method(method, RequestBody.create(body == null ? new byte[0] : body, mediaType));
+    } else {
+      builder.method(method, null);
+    }
+    return builder.build();
+  }
+
+  private static boolean isBodyRequired(String method) {
+    return method.equals("POST") || method.equals("PUT") || method.equals("PATCH");
+  }
+
+  private static JSONObject readResponse(Response resp, boolean isBinary) throws Exception {
+    JSONObject response = new JSONObject();
+    response.put("statusCode", resp.code());
+    response.put("statusMessage", resp.message());
+    JSONObject responseHeaders = getHeaders(resp.headers());
+    // OkHttp decodes gzip itself unless the script asked for an encoding
+    boolean isGzip = "gzip".equalsIgnoreCase(resp.header("Content-Encoding"));
+    if (isGzip) {
+      // the body is decoded, like the transparent gzip of the RN request
+      responseHeaders.remove("content-encoding");
+      responseHeaders.remove("content-length");
+    }
+    response.put("headers", responseHeaders);
+    response.put("url", resp.request().url().toString());
+    byte[] bytes = readBody(resp.body(), isGzip);
+    response.put("body", isBinary
+      ? Base64.encodeToString(bytes, Base64.NO_WRAP)
+      : new String(bytes, StandardCharsets.UTF_8));
+    return response;
+  }
+
+  private static JSONObject getHeaders(Headers headers) throws Exception {
+    JSONObject result = new JSONObject();
+    for (String name : headers.names()) {
+      StringBuilder value = new StringBuilder();
+      for (String item : headers.values(name)) {
+        if (value.length() > 0) value.append(", ");
+        value.append(item);
+      }
+      result.put(name.toLowerCase(Locale.ROOT), value.toString());
+    }
+    return result;
+  }
+
+  private static byte[] readBody(ResponseBody body, boolean isGzip) throws Exception {
+    if (body == null) return new byte[0];
+    InputStream input = body.byteStream();
+    if (isGzip) input = new GZIPInputStream(input);
+    try (InputStream stream = input) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length;
+      while ((length = stream.read(buffer)) != -1) {
+        output.write(buffer, 0, length);
+        if (output.size() > MAX_BODY_SIZE) throw new Exception("Response body too large");
+      }
+      return output.toByteArray();
+    }
+  }
+
+  private static byte[] buildMultipartBody(JSONObject formData, String boundary) {
+    StringBuilder body = new StringBuilder();
+    for (Iterator<String> it = formData.keys(); it.hasNext(); ) {
+      String name = it.next();
+      body.append("--").append(boundary).append("\r\n")
+        .append("Content-Disposition: form-data; name=\"").append(name.replace("\"", "%22")).append("\"\r\n\r\n")
+        .append(formData.optString(name)).append("\r\n");
+    }
+    body.append("--").append(boundary).append("--\r\n");
+    return body.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
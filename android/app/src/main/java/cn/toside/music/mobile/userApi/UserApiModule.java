@@ -1,27 +1,27 @@
 package cn.toside.music.mobile.userApi;
 
-import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
 import android.util.Log;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
 import java.lang.Thread;
 
 public class UserApiModule extends ReactContextBaseJavaModule {
-  private JavaScriptThread javaScriptThread;
+  private UserApiRuntimePool runtimePool;
   private final ReactApplicationContext reactContext;
-  private UtilsEvent utilsEvent;
 
   private int listenerCount = 0;
 
   UserApiModule(ReactApplicationContext reactContext) {
     super(reactContext);
-    this.javaScriptThread = null;
-    this.utilsEvent = null;
+    this.runtimePool = null;
     this.reactContext = reactContext;
   }
 
@@ -49,26 +49,15 @@ public class UserApiModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void loadScript(ReadableMap data) {
-    if (this.utilsEvent == null) this.utilsEvent = new UtilsEvent(this.reactContext);
-    if (this.javaScriptThread != null) destroy();
-    Bundle info = Arguments.toBundle(data);
-    this.javaScriptThread = new JavaScriptThread(this.reactContext, info);
-    this.javaScriptThread.prepareHandler(new JsHandler(this.reactContext.getMainLooper(), this.utilsEvent));
-    this.javaScriptThread.getHandler().sendEmptyMessage(HandlerWhat.INIT);
-    this.javaScriptThread.setUncaughtExceptionHandler((thread, ex) -> {
-      Handler jsHandler = javaScriptThread.getHandler();
-      Message message = jsHandler.obtainMessage();
-      message.what = HandlerWhat.LOG;
-      message.obj = new Object[]{"error", "Uncaught exception in JavaScriptThread: " + ex.getMessage()};
-      jsHandler.sendMessage(message);
-      Log.e("JavaScriptThread", "Uncaught exception in JavaScriptThread: " + ex.getMessage());
-    });
+    if (this.runtimePool == null) this.runtimePool = new UserApiRuntimePool(this.reactContext);
+    this.runtimePool.load(Arguments.toBundle(data));
     Log.d("UserApi", "Module Thread id: " + Thread.currentThread().getId());
   }
 
   @ReactMethod
-  public boolean sendAction(String action, String info) {
-    JavaScriptThread javaScriptThread = this.javaScriptThread;
+  public boolean sendAction(String id, String action, String info) {
+    if (this.runtimePool == null) return false;
+    JavaScriptThread javaScriptThread = this.runtimePool.get(id);
     if (javaScriptThread == null) return false;
     Handler jsHandler = javaScriptThread.getHandler();
     Message message = jsHandler.obtainMessage();
@@ -78,12 +67,42 @@ public class UserApiModule extends ReactContextBaseJavaModule {
     return true;
   }
 
+  /**
+   * Destroy the runtime of a source
+   */
+  @ReactMethod
+  public void unloadScript(String id) {
+    if (this.runtimePool == null) return;
+    this.runtimePool.unload(id);
+  }
+
+  @ReactMethod
+  public void getScriptCacheStats(boolean isReset, Promise promise) {
+    ScriptBytecodeCache cache = ScriptBytecodeCache.getInstance(this.reactContext);
+    WritableMap stats = Arguments.createMap();
+    stats.putInt("hitCount", cache.getHitCount());
+    stats.putInt("missCount", cache.getMissCount());
+    stats.putInt("errorCount", cache.getErrorCount());
+    stats.putDouble("averageHitLoadTimeNs", cache.getAverageHitLoadTime());
+    stats.putDouble("averageMissLoadTimeNs", cache.getAverageMissLoadTime());
+    if (isReset) cache.resetStats();
+    promise.resolve(stats);
+  }
+
+  /**
+   * Run the http requests of the scripts natively, disabled requests go through the RN request again
+   */
+  @ReactMethod
+  public void setNativeRequestEnabled(boolean isEnabled) {
+    UserApiHttp.shared.setEnabled(isEnabled);
+  }
+
+  /**
+   * Destroy the runtimes of all sources
+   */
   @ReactMethod
   public void destroy() {
-    JavaScriptThread javaScriptThread = this.javaScriptThread;
-    if (javaScriptThread == null) return;
-    javaScriptThread.getHandler().sendEmptyMessage(HandlerWhat.DESTROY);
-    javaScriptThread.stopThread();
-    this.javaScriptThread = null;
+    if (this.runtimePool == null) return;
+    this.runtimePool.clear();
   }
 }
@@ -0,0 +1,159 @@
+package cn.toside.music.mobile.userApi;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Message;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the loaded user api scripts alive, one JavaScriptThread with its own QuickJS context per source id.
+ * Above MAX_RUNTIME_NUM the least recently used runtime is destroyed, runtimes that were not used for
+ * IDLE_TIMEOUT are destroyed as well, except the runtime of the last loaded source.
+ */
+public class UserApiRuntimePool {
+  static final int MAX_RUNTIME_NUM = 3;
+  static final long IDLE_TIMEOUT = 10 * 60 * 1000;
+
+  private final ReactApplicationContext reactContext;
+  private final UtilsEvent utilsEvent;
+  // access ordered, the first runtime is the least recently used
+  private final LinkedHashMap<String, JavaScriptThread> runtimes = new LinkedHashMap<>(8, 0.75f, true);
+  private final HashMap<String, Long> lastUsedTimes = new HashMap<>();
+  private String activeId = null;
+
+  private final Handler idleHandler;
+  private final Runnable idleCheckRunnable = this::evictIdleRuntimes;
+  private boolean isIdleCheckScheduled = false;
+
+  UserApiRuntimePool(ReactApplicationContext reactContext) {
+    this.reactContext = reactContext;
+    this.utilsEvent = new UtilsEvent(reactContext);
+    this.idleHandler = new Handler(reactContext.getMainLooper());
+  }
+
+  /**
+   * Load the script of a source, a loaded runtime of the same script is reused and only sends its init action again
+   */
+  public synchronized void load(Bundle info) {
+    String id = info.getString("id", "");
+    activeId = id;
+    JavaScriptThread javaScriptThread = runtimes.get(id);
+    if (javaScriptThread != null) {
+      JsHandler eventHandler = javaScriptThread.getEventHandler();
+      if (isSameScript(javaScriptThread.getScriptInfo(), info) && eventHandler.isInitSuccess()) {
+        Log.d("UserApi", "reuse runtime: " + id);
+        lastUsedTimes.put(id, SystemClock.uptimeMillis());
+        eventHandler.resendInitEvent();
+        return;
+      }
+      unload(id);
+    }
+    runtimes.put(id, createRuntime(id, info));
+    lastUsedTimes.put(id, SystemClock.uptimeMillis());
+    trimToSize();
+    scheduleIdleCheck();
+  }
+
+  /**
+   * @return the runtime of the source, null if it is not loaded
+   */
+  public synchronized JavaScriptThread get(String id) {
+    JavaScriptThread javaScriptThread = runtimes.get(id);
+    if (javaScriptThread != null) lastUsedTimes.put(id, SystemClock.uptimeMillis());
+    return javaScriptThread;
+  }
+
+  public synchronized void unload(String id) {
+    JavaScriptThread javaScriptThread = runtimes.remove(id);
+    lastUsedTimes.remove(id);
+    if (javaScriptThread == null) return;
+    destroyRuntime(javaScriptThread);
+  }
+
+  public synchronized void clear() {
+    for (JavaScriptThread javaScriptThread : runtimes.values()) destroyRuntime(javaScriptThread);
+    runtimes.clear();
+    lastUsedTimes.clear();
+    activeId = null;
+    idleHandler.removeCallbacks(idleCheckRunnable);
+    isIdleCheckScheduled = false;
+  }
+
+  public synchronized int size() {
+    return runtimes.size();
+  }
+
+  private JavaScriptThread createRuntime(String id, Bundle info) {
+    JavaScriptThread javaScriptThread = new JavaScriptThread(this.reactContext, info);
+    javaScriptThread.prepareHandler(new JsHandler(this.reactContext.getMainLooper(), this.utilsEvent, id));
+    javaScriptThread.getHandler().sendEmptyMessage(HandlerWhat.INIT);
+    javaScriptThread.setUncaughtExceptionHandler((thread, ex) -> {
+      Handler jsHandler = javaScriptThread.getEventHandler();
+      Message message = jsHandler.obtainMessage();
+      message.what = HandlerWhat.LOG;
+      message.obj = new Object[]{"error", "Uncaught exception in JavaScriptThread: " + ex.getMessage()};
+      jsHandler.sendMessage(message);
+      Log.e("JavaScriptThread", "Uncaught exception in JavaScriptThread: " + ex.getMessage());
+    });
+    return javaScriptThread;
+  }
+
+  private void destroyRuntime(JavaScriptThread javaScriptThread) {
+    javaScriptThread.getHandler().sendEmptyMessage(HandlerWhat.DESTROY);
+    javaScriptThread.stopThread();
+  }
+
+  private static boolean isSameScript(Bundle a, Bundle b) {
+    for (String key : new String[]{"script", "name", "description", "version", "author", "homepage"}) {
+      if (!Objects.equals(a.getString(key), b.getString(key))) return false;
+    }
+    return true;
+  }
+
+  private void trimToSize() {
+    Iterator<Map.Entry<String, JavaScriptThread>> iterator = runtimes.entrySet().iterator();
+    while (runtimes.size() > MAX_RUNTIME_NUM && iterator.hasNext()) {
+      Map.Entry<String, JavaScriptThread> entry = iterator.next();
+      if (entry.getKey().equals(activeId)) continue;
+      Log.d("UserApi", "evict runtime: " + entry.getKey());
+      iterator.remove();
+      lastUsedTimes.remove(entry.getKey());
+      destroyRuntime(entry.getValue());
+    }
+  }
+
+  private void scheduleIdleCheck() {
+    if (isIdleCheckScheduled) return;
+    isIdleCheckScheduled = true;
+    idleHandler.postDelayed(idleCheckRunnable, IDLE_TIMEOUT);
+  }
+
+  private synchronized void evictIdleRuntimes() {
+    isIdleCheckScheduled = false;
+    long now = SystemClock.uptimeMillis();
+    long nextCheckDelay = -1;
+    for (String id : new ArrayList<>(runtimes.keySet())) {
+      if (id.equals(activeId)) continue;
+      long idleTime = now - lastUsedTimes.get(id);
+      if (idleTime >= IDLE_TIMEOUT) {
+        Log.d("UserApi", "destroy idle runtime: " + id);
+        unload(id);
+      } else if (nextCheckDelay < 0 || IDLE_TIMEOUT - idleTime < nextCheckDelay) {
+        nextCheckDelay = IDLE_TIMEOUT - idleTime;
+      }
+    }
+    if (nextCheckDelay < 0) return;
+    isIdleCheckScheduled = true;
+    idleHandler.postDelayed(idleCheckRunnable, nextCheckDelay);
+  }
+}
@@ -0,0 +1,35 @@
+package cn.toside.music.mobile.crypto;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.nio.charset.StandardCharsets;
+
+import cn.toside.music.mobile.userApi.BufferUtils;
+
+@RunWith(RobolectricTestRunner.class)
+public class HashTest {
+  private static String hmac(String algorithm, String key, String data) throws Exception {
+    return BufferUtils.buf2hex(Hash.hmac(algorithm, key.getBytes(StandardCharsets.UTF_8), data.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  public void digest() throws Exception {
+    assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", BufferUtils.buf2hex(Hash.digest("SHA-1", "abc".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  public void hmac() throws Exception {
+    assertEquals("f7bc83f430538424b13298e6aa6fb143ef4d59a14946175997479dbc2d1a3cd8",
+      hmac("HmacSHA256", "key", "The quick brown fox jumps over the lazy dog"));
+  }
+
+  @Test
+  public void hmacWithEmptyKey() throws Exception {
+    assertEquals("b613679a0814d9ec772f95d778c35fc5ff1697c493715653c6c712144292c5ad", hmac("HmacSHA256", "", ""));
+    assertEquals("fbdb1d1b18aa6c08324b7d64b71fb76370690e1d", hmac("HmacSHA1", "", ""));
+  }
+}
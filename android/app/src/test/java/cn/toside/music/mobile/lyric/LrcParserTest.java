@@ -0,0 +1,87 @@
+package cn.toside.music.mobile.lyric;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * The samples of LyricCorpus parsed by the fast parser and the regex parser LyricPlayer used before
+ */
+public class LrcParserTest {
+  @Test
+  public void fastParserMatchesCorpus() {
+    for (LyricCorpus.Sample sample : LyricCorpus.SAMPLES) {
+      assertEquals(sample.name, sample.expected, LyricCorpus.dump(LrcParser.parse(sample.lyric, sample.extendedLyrics)));
+    }
+  }
+
+  @Test
+  public void fastParserTagsMatchCorpus() {
+    for (LyricCorpus.Sample sample : LyricCorpus.SAMPLES) {
+      assertEquals(sample.name, sample.expectedTags, LyricCorpus.dump(LrcParser.parseMain(sample.lyric, LrcParser.NEVER_CANCELLED).tags));
+      assertEquals(sample.name, sample.expectedTags, LyricCorpus.dump(LrcParser.parseTags(sample.lyric)));
+    }
+  }
+
+  @Test
+  public void legacyParserMatchesCorpus() {
+    for (LyricCorpus.Sample sample : LyricCorpus.SAMPLES) {
+      if (sample.isFastParserOnly) continue;
+      assertEquals(sample.name, sample.expected, LyricCorpus.dump(LrcRegexParser.parse(sample.lyric, sample.extendedLyrics, LrcParser.NEVER_CANCELLED)));
+    }
+  }
+
+  @Test
+  public void parsersMatchOnLargeLyric() {
+    String lyric = LyricCorpus.createLyric(5000, "line");
+    ArrayList<String> extendedLyrics = new ArrayList<>(Collections.singletonList(LyricCorpus.createLyric(5000, "translation")));
+    assertEquals(LyricCorpus.dump(LrcRegexParser.parse(lyric, extendedLyrics, LrcParser.NEVER_CANCELLED)), LyricCorpus.dump(LrcParser.parse(lyric, extendedLyrics)));
+  }
+
+  @Test
+  public void toggleMergeMatchesFullParse() {
+    String lyric = LyricCorpus.createLyric(500, "line");
+    String extendedLyric = LyricCorpus.createLyric(500, "translation");
+    LrcParser.MainLyric mainLyric = LrcParser.parseMain(lyric, LrcParser.NEVER_CANCELLED);
+    LyricDocument merged = LrcParser.merge(mainLyric, Collections.singletonList(
+      LrcParser.parseExtended(mainLyric, extendedLyric, LrcParser.NEVER_CANCELLED)));
+    assertEquals(LyricCorpus.dump(LrcParser.parse(lyric, Collections.singletonList(extendedLyric))), LyricCorpus.dump(merged));
+  }
+
+  private static String dumpWords(LyricDocument document, int lineNum) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < document.getWordCount(lineNum); i++) {
+      if (i > 0) builder.append(' ');
+      builder.append(document.getWordTime(lineNum, i)).append('@').append(document.getWordOffset(lineNum, i));
+    }
+    return builder.toString();
+  }
+
+  @Test
+  public void repeatedLineWordsFollowEachLabel() {
+    LyricDocument document = LrcParser.parse("[00:10.00][01:10.00]<00:10.00>he<00:10.500>llo\n[00:20.00]other\n", Collections.emptyList());
+    assertEquals("10000|hello\n20000|other\n70000|hello\n", LyricCorpus.dump(document));
+    assertEquals("10000@0 10500@2", dumpWords(document, 0));
+    assertEquals("", dumpWords(document, 1));
+    assertEquals("70000@0 70500@2", dumpWords(document, 2));
+  }
+
+  @Test
+  public void repeatedLineWordsFollowLabelAfterFoldedLabel() {
+    LyricDocument document = LrcParser.parse("[00:10.00]first\n[00:10.00][00:40.00]<00:10.00>he<00:10.500>llo\n", Collections.emptyList());
+    assertEquals("10000|first|hello\n40000|hello\n", LyricCorpus.dump(document));
+    assertEquals("", dumpWords(document, 0));
+    assertEquals("40000@0 40500@2", dumpWords(document, 1));
+  }
+
+  @Test
+  public void foldedLineWordsAreDropped() {
+    LyricDocument document = LrcParser.parse("[00:01.00]<00:01.00>a<00:01.500>b\n[00:01.00]<00:01.200>c\n[00:02.00]<00:02.00>d\n", Collections.emptyList());
+    assertEquals("1000|ab|c\n2000|d\n", LyricCorpus.dump(document));
+    assertEquals("1000@0 1500@1", dumpWords(document, 0));
+    assertEquals("2000@0", dumpWords(document, 1));
+  }
+}
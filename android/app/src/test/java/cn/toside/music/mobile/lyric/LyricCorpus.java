@@ -0,0 +1,101 @@
+package cn.toside.music.mobile.lyric;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tricky LRC samples with the lines both parsers must produce, loaded from the corpus resource dir.
+ * corpus/samples.txt lists the sample names, a name followed by `fast-only` is skipped for the regex parser.
+ * A sample is `name.lrc` with the extended lyrics `name.1.lrc`, `name.2.lrc`...,
+ * the expected lines `name.expected` written as `time|text|extended lyrics...`, one per line,
+ * and the expected tags `name.tags` written as `title|artist|album|by|offset`, a sample without tags has no file.
+ */
+public class LyricCorpus {
+  static class Sample {
+    final String name;
+    final String lyric;
+    final ArrayList<String> extendedLyrics;
+    final String expected;
+    final String expectedTags;
+    // the regex parser keeps word time tags in the text
+    final boolean isFastParserOnly;
+
+    Sample(String name, String lyric, ArrayList<String> extendedLyrics, String expected, String expectedTags, boolean isFastParserOnly) {
+      this.name = name;
+      this.lyric = lyric;
+      this.extendedLyrics = extendedLyrics;
+      this.expected = expected;
+      this.expectedTags = expectedTags;
+      this.isFastParserOnly = isFastParserOnly;
+    }
+  }
+
+  private static final String DIR = "corpus/";
+  private static final String NO_TAGS = "null|null|null|null|0";
+
+  static final List<Sample> SAMPLES = loadSamples();
+
+  private static String read(String fileName) {
+    try (InputStream input = LyricCorpus.class.getResourceAsStream(DIR + fileName)) {
+      if (input == null) return null;
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length;
+      while ((length = input.read(buffer)) != -1) output.write(buffer, 0, length);
+      return output.toString("UTF-8");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static List<Sample> loadSamples() {
+    ArrayList<Sample> samples = new ArrayList<>();
+    for (String entry : read("samples.txt").split("\n")) {
+      if (entry.isEmpty()) continue;
+      String[] fields = entry.split(" ");
+      String name = fields[0];
+      ArrayList<String> extendedLyrics = new ArrayList<>();
+      String extendedLyric;
+      while ((extendedLyric = read(name + "." + (extendedLyrics.size() + 1) + ".lrc")) != null) extendedLyrics.add(extendedLyric);
+      String tags = read(name + ".tags");
+      samples.add(new Sample(name, read(name + ".lrc"), extendedLyrics, read(name + ".expected"),
+        tags == null ? NO_TAGS : tags.trim(), fields.length > 1 && fields[1].equals("fast-only")));
+    }
+    return samples;
+  }
+
+  static String dump(LyricDocument document) {
+    StringBuilder builder = new StringBuilder();
+    for (int i = 0; i < document.size(); i++) {
+      builder.append(document.getTime(i)).append('|').append(document.getText(i));
+      for (String extendedLyric : document.getExtendedLyrics(i)) builder.append('|').append(extendedLyric);
+      builder.append('\n');
+    }
+    return builder.toString();
+  }
+
+  static String dump(LyricTags tags) {
+    return tags.getTitle() + "|" + tags.getArtist() + "|" + tags.getAlbum() + "|" + tags.getBy() + "|" + tags.getOffset();
+  }
+
+  /**
+   * A large lyric with a translation, `lineNum` lines with distinct times
+   */
+  static String createLyric(int lineNum, String prefix) {
+    StringBuilder builder = new StringBuilder(lineNum * 32);
+    int time = 0;
+    for (int i = 0; i < lineNum; i++) {
+      time += 1500 + (i * 7919) % 3000;
+      builder.append('[')
+        .append(time / 60000 < 10 ? "0" : "").append(time / 60000).append(':')
+        .append(time / 1000 % 60 < 10 ? "0" : "").append(time / 1000 % 60).append('.')
+        .append(time % 1000 < 100 ? (time % 1000 < 10 ? "00" : "0") : "").append(time % 1000)
+        .append(']').append(prefix).append(" line ").append(i).append("\r\n");
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,54 @@
+package cn.toside.music.mobile.lyric;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+public class LyricDocumentTest {
+  static LyricDocument createDocument(int lineNum) {
+    int[] times = new int[lineNum];
+    String[] texts = new String[lineNum];
+    int time = 0;
+    for (int i = 0; i < lineNum; i++) {
+      time += 1500 + (i * 7919) % 3000;
+      times[i] = time;
+      texts[i] = "line " + i;
+    }
+    return new LyricDocument(times, texts, new int[lineNum + 1], new String[0]);
+  }
+
+  /**
+   * The linear scan LyricPlayer used before the binary search
+   */
+  static int linearFindLineNum(LyricDocument document, int curTime, int startIndex) {
+    if (curTime <= 0) return 0;
+    int length = document.size();
+    for (int index = startIndex; index < length; index++) {
+      if (curTime < document.getTime(index)) return index == 0 ? 0 : index - 1;
+    }
+    return length - 1;
+  }
+
+  @Test
+  public void findLineNumMatchesLinearScanOnSeek() {
+    LyricDocument document = createDocument(1000);
+    int maxTime = document.getTime(document.size() - 1) + 1000;
+    Random random = new Random(1000);
+    for (int i = 0; i < 10000; i++) {
+      int time = random.nextInt(maxTime) - 100;
+      assertEquals("time " + time, linearFindLineNum(document, time, 0), document.findLineNum(time, 0));
+    }
+  }
+
+  @Test
+  public void findLineNumMatchesLinearScanOnStep() {
+    LyricDocument document = createDocument(1000);
+    for (int i = 0; i < document.size(); i++) {
+      int time = document.getTime(i);
+      assertEquals("line " + i, linearFindLineNum(document, time, i), document.findLineNum(time, i));
+      assertEquals("line " + i, linearFindLineNum(document, time - 1, 0), document.findLineNum(time - 1, 0));
+    }
+  }
+}
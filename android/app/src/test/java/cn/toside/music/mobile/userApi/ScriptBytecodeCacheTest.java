@@ -0,0 +1,32 @@
+package cn.toside.music.mobile.userApi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import cn.toside.music.mobile.BuildConfig;
+
+public class ScriptBytecodeCacheTest {
+  @Test
+  public void engineVersionFollowsQuickJSDependency() {
+    assertTrue(BuildConfig.QUICKJS_VERSION, BuildConfig.QUICKJS_VERSION.matches("\\d+(\\.\\d+)+"));
+    assertEquals("quickjs-wrapper-" + BuildConfig.QUICKJS_VERSION + "-" + BuildConfig.VERSION_CODE, ScriptBytecodeCache.ENGINE_VERSION);
+  }
+
+  @Test
+  public void keyIsHexHashOfEngineVersionAndScript() {
+    // the key of the String.format implementation, the files already cached keep their names
+    assertEquals("184436cfb5c4b976150d276ba7032242f55bb65848fd31041b2149ada2a76563",
+      ScriptBytecodeCache.getKey("quickjs-wrapper-2.4.0-1", "globalThis.a = 1"));
+  }
+
+  @Test
+  public void keyChangesWithEngineVersion() {
+    assertNotEquals(ScriptBytecodeCache.getKey("quickjs-wrapper-2.4.0-1", "globalThis.a = 1"),
+      ScriptBytecodeCache.getKey("quickjs-wrapper-2.4.1-1", "globalThis.a = 1"));
+    assertNotEquals(ScriptBytecodeCache.getKey(ScriptBytecodeCache.ENGINE_VERSION, "globalThis.a = 1"),
+      ScriptBytecodeCache.getKey(ScriptBytecodeCache.ENGINE_VERSION, "globalThis.a = 2"));
+  }
+}
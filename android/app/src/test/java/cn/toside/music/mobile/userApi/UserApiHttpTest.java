@@ -0,0 +1,211 @@
+package cn.toside.music.mobile.userApi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * UserApiHttp against a local http server, the response must have the shape the preload script reads
+ */
+@RunWith(RobolectricTestRunner.class)
+public class UserApiHttpTest {
+  private HttpServer server;
+  private String baseUrl;
+  private HandlerThread handlerThread;
+  private Handler handler;
+  private final BlockingQueue<String> results = new LinkedBlockingQueue<>();
+  private final UserApiHttp.Callback callback = (requestKey, result) -> results.add(result);
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/gzip", exchange -> {
+      String body = "{\"accept-encoding\":\"" + exchange.getRequestHeaders().getFirst("Accept-Encoding") + "\"}";
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+        gzip.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+      exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+      exchange.getResponseHeaders().add("Set-Cookie", "a=1");
+      exchange.getResponseHeaders().add("Set-Cookie", "b=2");
+      exchange.sendResponseHeaders(200, output.size());
+      exchange.getResponseBody().write(output.toByteArray());
+      exchange.close();
+    });
+    server.createContext("/missing", exchange -> {
+      byte[] body = "not found".getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(404, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/binary", exchange -> {
+      byte[] body = {0, (byte) 0xff, 1, 2};
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/echo", exchange -> {
+      byte[] body = readAll(exchange.getRequestBody());
+      String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+      if (contentType != null) exchange.getResponseHeaders().add("X-Content-Type", contentType);
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.createContext("/port", exchange -> {
+      byte[] body = String.valueOf(exchange.getRemoteAddress().getPort()).getBytes(StandardCharsets.UTF_8);
+      exchange.sendResponseHeaders(200, body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    // every chunk arrives within the read timeout, only the whole request takes too long
+    server.createContext("/trickle", exchange -> {
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream output = exchange.getResponseBody()) {
+        for (int i = 0; i < 20; i++) {
+          output.write('.');
+          output.flush();
+          Thread.sleep(200);
+        }
+      } catch (Exception ignored) {}
+      exchange.close();
+    });
+    server.start();
+    baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+    handlerThread = new HandlerThread("UserApiHttpTest");
+    handlerThread.start();
+    handler = new Handler(handlerThread.getLooper());
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+    handlerThread.quit();
+  }
+
+  private static byte[] readAll(InputStream input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int length;
+    while ((length = input.read(buffer)) != -1) output.write(buffer, 0, length);
+    return output.toByteArray();
+  }
+
+  private JSONObject takeResult() throws Exception {
+    String result = results.poll(10, TimeUnit.SECONDS);
+    assertNotNull("no response", result);
+    return new JSONObject(result);
+  }
+
+  private JSONObject request(String path, String options) throws Exception {
+    UserApiHttp.shared.execute("key", baseUrl + path, options, handler, callback);
+    return takeResult();
+  }
+
+  @Test
+  public void disabledUntilEnabledByTheApp() {
+    assertFalse(UserApiHttp.shared.isEnabled());
+  }
+
+  @Test
+  public void gzipBodyIsDecoded() throws Exception {
+    JSONObject result = request("/gzip", "{\"method\":\"get\",\"headers\":{}}");
+    assertEquals("key", result.getString("requestKey"));
+    assertTrue(result.isNull("error"));
+    assertFalse(result.getBoolean("binary"));
+    JSONObject response = result.getJSONObject("response");
+    assertEquals(200, response.getInt("statusCode"));
+    assertEquals("{\"accept-encoding\":\"gzip\"}", response.getString("body"));
+    JSONObject headers = response.getJSONObject("headers");
+    assertFalse(headers.has("content-encoding"));
+    assertFalse(headers.has("content-length"));
+    assertEquals("a=1, b=2", headers.getString("set-cookie"));
+  }
+
+  @Test
+  public void errorStatusKeepsBody() throws Exception {
+    JSONObject result = request("/missing", "{\"method\":\"get\",\"headers\":{}}");
+    assertTrue(result.isNull("error"));
+    JSONObject response = result.getJSONObject("response");
+    assertEquals(404, response.getInt("statusCode"));
+    assertEquals("not found", response.getString("body"));
+  }
+
+  @Test
+  public void binaryBodyIsBase64() throws Exception {
+    JSONObject result = request("/binary", "{\"method\":\"get\",\"headers\":{},\"binary\":true}");
+    assertTrue(result.getBoolean("binary"));
+    assertEquals("AP8BAg==", result.getJSONObject("response").getString("body"));
+  }
+
+  @Test
+  public void connectionIsReused() throws Exception {
+    HashSet<String> clientPorts = new HashSet<>();
+    for (int i = 0; i < 5; i++) {
+      clientPorts.add(request("/port", "{\"method\":\"get\",\"headers\":{}}").getJSONObject("response").getString("body"));
+    }
+    assertEquals(clientPorts.toString(), 1, clientPorts.size());
+  }
+
+  @Test
+  public void postWithoutBodySendsEmptyBody() throws Exception {
+    JSONObject response = request("/echo", "{\"method\":\"post\",\"headers\":{},\"body\":null}").getJSONObject("response");
+    assertEquals(200, response.getInt("statusCode"));
+    assertEquals("", response.getString("body"));
+  }
+
+  @Test
+  public void formDataIsSentAsMultipart() throws Exception {
+    JSONObject response = request("/echo", "{\"method\":\"post\",\"headers\":{},\"formData\":{\"name\":\"value\"}}").getJSONObject("response");
+    String contentType = response.getJSONObject("headers").getString("x-content-type");
+    assertTrue(contentType, contentType.startsWith("multipart/form-data; boundary="));
+    String boundary = contentType.substring(contentType.indexOf('=') + 1);
+    assertEquals("--" + boundary + "\r\nContent-Disposition: form-data; name=\"name\"\r\n\r\nvalue\r\n--" + boundary + "--\r\n",
+      response.getString("body"));
+  }
+
+  @Test
+  public void timeoutCoversWholeRequest() throws Exception {
+    JSONObject result = request("/trickle", "{\"method\":\"get\",\"headers\":{},\"timeout\":1000}");
+    assertEquals("request timeout", result.getString("error"));
+    assertTrue(result.isNull("response"));
+  }
+
+  @Test
+  public void cancelRespondsAborted() throws Exception {
+    UserApiHttp.Request request = UserApiHttp.shared.execute("key", baseUrl + "/trickle", "{\"method\":\"get\",\"headers\":{}}", handler, callback);
+    Thread.sleep(300);
+    UserApiHttp.shared.cancel(request);
+    JSONObject result = takeResult();
+    assertEquals("Aborted", result.getString("error"));
+    assertTrue(result.isNull("response"));
+  }
+}
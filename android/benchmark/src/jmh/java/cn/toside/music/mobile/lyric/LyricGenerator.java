@@ -0,0 +1,20 @@
+package cn.toside.music.mobile.lyric;
+
+class LyricGenerator {
+  /**
+   * A large lyric, `lineNum` lines with distinct times, the generator of the unit test LyricCorpus
+   */
+  static String createLyric(int lineNum, String prefix) {
+    StringBuilder builder = new StringBuilder(lineNum * 32);
+    int time = 0;
+    for (int i = 0; i < lineNum; i++) {
+      time += 1500 + (i * 7919) % 3000;
+      builder.append('[')
+        .append(time / 60000 < 10 ? "0" : "").append(time / 60000).append(':')
+        .append(time / 1000 % 60 < 10 ? "0" : "").append(time / 1000 % 60).append('.')
+        .append(time % 1000 < 100 ? (time % 1000 < 10 ? "00" : "0") : "").append(time % 1000)
+        .append(']').append(prefix).append(" line ").append(i).append("\r\n");
+    }
+    return builder.toString();
+  }
+}
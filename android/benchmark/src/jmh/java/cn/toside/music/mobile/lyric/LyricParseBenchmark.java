@@ -0,0 +1,54 @@
+package cn.toside.music.mobile.lyric;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse a generated lyric with a translation with the fast and the regex parser,
+ * and toggle the translation, which only merges the extended lyric against the kept main lyric.
+ * Times and the gc.alloc.rate.norm of the gc profiler are per lyric line.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(LyricParseBenchmark.LINE_NUM)
+public class LyricParseBenchmark {
+  static final int LINE_NUM = 10000;
+
+  private String lyric;
+  private ArrayList<String> extendedLyrics;
+  private LrcParser.MainLyric mainLyric;
+
+  @Setup
+  public void setUp() {
+    lyric = LyricGenerator.createLyric(LINE_NUM, "line");
+    extendedLyrics = new ArrayList<>(Collections.singletonList(LyricGenerator.createLyric(LINE_NUM, "translation")));
+    mainLyric = LrcParser.parseMain(lyric, LrcParser.NEVER_CANCELLED);
+  }
+
+  @Benchmark
+  public LyricDocument fastParse() {
+    return LrcParser.parse(lyric, extendedLyrics);
+  }
+
+  @Benchmark
+  public LyricDocument regexParse() {
+    return LrcRegexParser.parse(lyric, extendedLyrics, LrcParser.NEVER_CANCELLED);
+  }
+
+  @Benchmark
+  public LyricDocument toggleTranslation() {
+    return LrcParser.merge(mainLyric, Collections.singletonList(
+      LrcParser.parseExtended(mainLyric, extendedLyrics.get(0), LrcParser.NEVER_CANCELLED)));
+  }
+}
@@ -0,0 +1,72 @@
+package cn.toside.music.mobile.lyric;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Find the current line with the binary search of LyricDocument and the linear scan LyricPlayer used before,
+ * for random seeks and for the forward steps of normal playback. Times are per seek or per step.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LyricSeekBenchmark {
+  static final int LINE_NUM = 10000;
+  static final int SEEK_NUM = 10000;
+
+  private LyricDocument document;
+  private int[] seekTimes;
+
+  @Setup
+  public void setUp() {
+    document = LrcParser.parse(LyricGenerator.createLyric(LINE_NUM, "line"), Collections.emptyList());
+    int maxTime = document.getTime(LINE_NUM - 1) + 1000;
+    Random random = new Random(LINE_NUM);
+    seekTimes = new int[SEEK_NUM];
+    for (int i = 0; i < SEEK_NUM; i++) seekTimes[i] = random.nextInt(maxTime);
+  }
+
+  private static int linearFindLineNum(LyricDocument document, int curTime, int startIndex) {
+    if (curTime <= 0) return 0;
+    int length = document.size();
+    for (int index = startIndex; index < length; index++) {
+      if (curTime < document.getTime(index)) return index == 0 ? 0 : index - 1;
+    }
+    return length - 1;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SEEK_NUM)
+  public void binarySeek(Blackhole blackhole) {
+    for (int time : seekTimes) blackhole.consume(document.findLineNum(time, 0));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(SEEK_NUM)
+  public void linearSeek(Blackhole blackhole) {
+    for (int time : seekTimes) blackhole.consume(linearFindLineNum(document, time, 0));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINE_NUM)
+  public void binaryStep(Blackhole blackhole) {
+    for (int i = 0; i < LINE_NUM; i++) blackhole.consume(document.findLineNum(document.getTime(i), i));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(LINE_NUM)
+  public void linearStep(Blackhole blackhole) {
+    for (int i = 0; i < LINE_NUM; i++) blackhole.consume(linearFindLineNum(document, document.getTime(i), i));
+  }
+}
@@ -1,4 +1,4 @@
-import { type InitParams, onScriptAction, sendAction, type ResponseParams, type UpdateInfoParams, type RequestParams } from '@/utils/nativeModules/userApi'
+import { type InitParams, onScriptAction, sendAction, setNativeRequestEnabled, type ResponseParams, type UpdateInfoParams, type RequestParams } from '@/utils/nativeModules/userApi'
 import { log, setUserApiList, setUserApiStatus } from '@/core/userApi'
 import settingState from '@/store/setting/state'
 import BackgroundTimer from 'react-native-background-timer'
@@ -17,17 +17,17 @@ export default async(setting: LX.AppSetting) => {
     scriptRequestMap.delete(requestKey)
     target.abort()
   }
-  const sendScriptRequest = (requestKey: string, url: string, options: RequestParams['options']) => {
+  const sendScriptRequest = (id: string, requestKey: string, url: string, options: RequestParams['options']) => {
     let req = fetchData(url, options)
     req.request.then(response => {
       // console.log(response)
-      sendAction('response', {
+      sendAction(id, 'response', {
         error: null,
         requestKey,
         response,
       })
     }).catch(err => {
-      sendAction('response', {
+      sendAction(id, 'response', {
         error: err.message,
         requestKey,
         response: null,
@@ -37,7 +37,7 @@ export default async(setting: LX.AppSetting) => {
     })
     scriptRequestMap.set(requestKey, req)
   }
-  const sendUserApiRequest = async(data: LX.UserApi.UserApiRequestParams) => {
+  const sendUserApiRequest = async(id: string, data: LX.UserApi.UserApiRequestParams) => {
     const handleApiUpdate = () => {
       const target = userApiRequestMap.get(data.requestKey)
       if (!target) return
@@ -56,7 +56,7 @@ export default async(setting: LX.AppSetting) => {
           target.reject(new Error('request timeout'))
         }, 20_000),
       })
-      sendAction('request', data)
+      sendAction(id, 'request', data)
     }).finally(() => {
       global.state_event.off('apiSourceUpdated', handleApiUpdate)
     })
@@ -73,8 +73,9 @@ export default async(setting: LX.AppSetting) => {
   }
   const handleStateChange = ({ status, errorMessage, info }: InitParams) => {
     // console.log(status, message, info)
-    setUserApiStatus(status, errorMessage)
+    // other loaded scripts keep running in the background
     if (!info || info.id !== settingState.setting['common.apiSource']) return
+    setUserApiStatus(status, errorMessage)
     if (status) {
       if (info.sources) {
         let apis: any = {}
@@ -91,7 +92,7 @@ export default async(setting: LX.AppSetting) => {
                     canceleFn() {
                       // userApiRequestCancel(requestKey)
                     },
-                    promise: sendUserApiRequest({
+                    promise: sendUserApiRequest(info.id, {
                       requestKey,
                       data: {
                         source,
@@ -119,7 +120,7 @@ export default async(setting: LX.AppSetting) => {
                     canceleFn() {
                       // userApiRequestCancel(requestKey)
                     },
-                    promise: sendUserApiRequest({
+                    promise: sendUserApiRequest(info.id, {
                       requestKey,
                       data: {
                         source,
@@ -147,7 +148,7 @@ export default async(setting: LX.AppSetting) => {
                     canceleFn() {
                       // userApiRequestCancel(requestKey)
                     },
-                    promise: sendUserApiRequest({
+                    promise: sendUserApiRequest(info.id, {
                       requestKey,
                       data: {
                         source,
@@ -212,6 +213,9 @@ export default async(setting: LX.AppSetting) => {
     }
   }
 
+  // script requests run natively, the request action below is only sent if that is turned off
+  setNativeRequestEnabled(true)
+
   onScriptAction((event) => {
     // console.log('script actuon: ', event)
     switch (event.action) {
@@ -223,7 +227,7 @@ export default async(setting: LX.AppSetting) => {
         handleUserApiResponse(event.data)
         break
       case 'request':
-        sendScriptRequest(event.data.requestKey, event.data.url, event.data.options)
+        sendScriptRequest(event.id, event.data.requestKey, event.data.url, event.data.options)
         break
       case 'cancelRequest':
         cancelRequest(event.data, 'request canceled')
@@ -2,62 +2,9 @@
 // import progress from 'request-progress'
 import BackgroundTimer from 'react-native-background-timer'
 
-const defaultHeaders = {
-  'User-Agent': 'Mozilla/5.0 (Windows NT 10.0; WOW64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/69.0.3497.100 Safari/537.36',
-}
 // var proxyUrl = "http://" + user + ":" + password + "@" + host + ":" + port;
 // var proxiedRequest = request.defaults({'proxy': proxyUrl});
 
-const handleRequestData = async({
-  method = 'get',
-  headers = {},
-  format = 'json',
-  credentials = 'omit',
-  cache = 'default',
-  ...options
-}) => {
-  // console.log(url, options)
-  headers = Object.assign({
-    Accept: 'application/json',
-  }, headers)
-  if (method.toLocaleLowerCase() === 'post' && !headers['Content-Type']) {
-    if (options.form) {
-      headers['Content-Type'] = 'application/x-www-form-urlencoded'
-      const formBody = []
-      for (let [key, value] of Object.entries(options.form)) {
-        let encodedKey = encodeURIComponent(key)
-        let encodedValue = encodeURIComponent(value)
-        formBody.push(`${encodedKey}=${encodedValue}`)
-      }
-      options.body = formBody.join('&')
-      delete options.form
-    } else if (options.formData) {
-      headers['Content-Type'] = 'multipart/form-data'
-      const formBody = []
-      for (let [key, value] of Object.entries(options.form)) {
-        let encodedKey = encodeURIComponent(key)
-        let encodedValue = encodeURIComponent(value)
-        formBody.push(`${encodedKey}=${encodedValue}`)
-      }
-      options.body = options.formData
-      delete options.formData
-    } else {
-      headers['Content-Type'] = 'application/json'
-    }
-  }
-  if (headers['Content-Type'] === 'application/json' && options.body) {
-    options.body = JSON.stringify(options.body)
-  }
-
-  return {
-    ...options,
-    method,
-    credentials,
-    cache,
-    headers: Object.assign({}, defaultHeaders, headers),
-  }
-}
-
 // https://stackoverflow.com/a/64945178
 const blobToBuffer = (blob) => {
   return new Promise((resolve, reject) => {
@@ -71,7 +18,8 @@ const blobToBuffer = (blob) => {
   })
 }
 
-export const fetchData = (url, { timeout = 13_000, ...options }) => {
+// headers and body are prepared by the user api preload script, the native request sends the same options
+export const fetchData = (url, { timeout = 13_000, method, headers, body, formData, binary }) => {
   // console.log('---start---', url)
 
   const controller = new global.AbortController()
@@ -80,40 +28,47 @@ export const fetchData = (url, { timeout = 13_000, ...options }) => {
     controller.abort()
   }, timeout)
 
+  if (formData) {
+    body = new global.FormData()
+    for (const [key, value] of Object.entries(formData)) body.append(key, String(value))
+  }
+
   return {
-    request: handleRequestData(options).then(options => {
-      return global.fetch(url, {
-        ...options,
-        signal: controller.signal,
-      }).then(resp => (options.binary ? resp.blob() : resp.text()).then(text => {
-        // console.log(options, headers, text)
-        return {
-          headers: resp.headers.map,
-          body: text,
-          statusCode: resp.status,
-          statusMessage: resp.statusText,
-          url: resp.url,
-          ok: resp.ok,
-        }
-      })).then(resp => {
-        if (options.binary) {
-          return blobToBuffer(resp.body).then(buffer => {
-            resp.body = buffer
-            return resp
-          })
-        } else {
-          try {
-            resp.body = JSON.parse(resp.body)
-          } catch {}
+    request: global.fetch(url, {
+      method,
+      headers,
+      body,
+      credentials: 'omit',
+      cache: 'default',
+      signal: controller.signal,
+    }).then(resp => (binary ? resp.blob() : resp.text()).then(text => {
+      // console.log(options, headers, text)
+      return {
+        headers: resp.headers.map,
+        body: text,
+        statusCode: resp.status,
+        statusMessage: resp.statusText,
+        url: resp.url,
+        ok: resp.ok,
+      }
+    })).then(resp => {
+      if (binary) {
+        return blobToBuffer(resp.body).then(buffer => {
+          resp.body = buffer
           return resp
-        }
-      }).catch(err => {
-        // console.log(err, err.code, err.message)
-        return Promise.reject(err)
-      }).finally(() => {
-        if (id == null) return
-        BackgroundTimer.clearTimeout(id)
-      })
+        })
+      } else {
+        try {
+          resp.body = JSON.parse(resp.body)
+        } catch {}
+        return resp
+      }
+    }).catch(err => {
+      // console.log(err, err.code, err.message)
+      return Promise.reject(err)
+    }).finally(() => {
+      if (id == null) return
+      BackgroundTimer.clearTimeout(id)
     }),
     abort() {
       controller.abort()
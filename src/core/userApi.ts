@@ -1,6 +1,6 @@
 import { action, state } from '@/store/userApi'
 import { addUserApi, getUserApiScript, removeUserApi as removeUserApiFromStore, setUserApiAllowShowUpdateAlert as setUserApiAllowShowUpdateAlertFromStore } from '@/utils/data'
-import { destroy, loadScript } from '@/utils/nativeModules/userApi'
+import { destroy, loadScript, unloadScript } from '@/utils/nativeModules/userApi'
 import { log as writeLog } from '@/utils/log'
 
 
@@ -33,6 +33,7 @@ export const importUserApi = async(script: string) => {
 }
 
 export const removeUserApi = async(ids: string[]) => {
+  for (const id of ids) unloadScript(id)
   const list = await removeUserApiFromStore(ids)
   action.setUserApiList(list)
 }
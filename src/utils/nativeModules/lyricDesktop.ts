@@ -131,6 +131,46 @@ export const setPlaybackRate = async(rate: number): Promise<void> => {
   return LyricModule.setPlaybackRate(rate)
 }
 
+/**
+ * use the single pass lyric parser instead of the regex parser
+ * @param isUseFastParser
+ */
+export const setUseFastParser = async(isUseFastParser: boolean): Promise<void> => {
+  return LyricModule.setUseFastParser(isUseFastParser)
+}
+
+/**
+ * draw the desktop lyric with the hardware layer renderer instead of the TextSwitcher
+ * @param isUseLayerRenderer
+ */
+export const setUseLayerRenderer = async(isUseLayerRenderer: boolean): Promise<void> => {
+  return LyricModule.setUseLayerRenderer(isUseLayerRenderer)
+}
+
+/**
+ * show the previous and upcoming lines in a scrolling panel instead of the current line
+ * @param isUseScrollPanel
+ */
+export const setUseScrollPanel = async(isUseScrollPanel: boolean): Promise<void> => {
+  return LyricModule.setUseScrollPanel(isUseScrollPanel)
+}
+
+/**
+ * render the glyphs of the upcoming lines in the background before they are shown
+ * @param isEnabled
+ */
+export const setGlyphWarmupEnabled = async(isEnabled: boolean): Promise<void> => {
+  return LyricModule.setGlyphWarmupEnabled(isEnabled)
+}
+
+/**
+ * send the next lines with each lyric line event, the events of these lines are skipped
+ * @param lineNum number of following lines, 0 sends every line by itself
+ */
+export const setEventLookaheadLineNum = async(lineNum: number): Promise<void> => {
+  return LyricModule.setEventLookaheadLineNum(lineNum)
+}
+
 /**
  * toggle show translation
  * @param isShowTranslation is show translation
@@ -209,6 +249,103 @@ export const setLyricTextPosition = async(textX: LX.AppSetting['desktopLyric.tex
   return LyricModule.setLyricTextPosition(textX.toUpperCase(), textY.toUpperCase())
 }
 
+export interface DriftStats {
+  tickCount?: number
+  lateTickCount?: number
+  averageDriftTime?: number
+  maxDriftTime?: number
+}
+/**
+ * get the lyric line timer drift statistics
+ * @param isReset reset the statistics after reading
+ */
+export const getDriftStats = async(isReset = false): Promise<DriftStats> => {
+  return LyricModule.getDriftStats(isReset)
+}
+
+export interface PowerStats {
+  isSuspended?: boolean
+  /** bit flags, 1: screen off, 2: transparent, 4: overlay hidden by the system */
+  reasons?: number
+  suspendCount?: number
+  /** time the desktop lyric rendering was suspended */
+  suspendedTimeMs?: number
+}
+/**
+ * get the time the desktop lyric spent suspended
+ * @param isReset reset the statistics after reading
+ */
+export const getPowerStats = async(isReset = false): Promise<PowerStats> => {
+  return LyricModule.getPowerStats(isReset)
+}
+
+export interface EventStats {
+  sentCount?: number
+  /** duplicate lines and lines sent ahead */
+  skippedCount?: number
+}
+/**
+ * get the lyric line event statistics
+ * @param isReset reset the statistics after reading
+ */
+export const getEventStats = async(isReset = false): Promise<EventStats> => {
+  return LyricModule.getEventStats(isReset)
+}
+
+export interface CacheStats {
+  hitCount: number
+  missCount: number
+  evictionCount: number
+  entryCount: number
+  size: number
+  maxSize: number
+}
+/**
+ * get the parsed lyric cache statistics
+ * @param isReset reset the hit, miss and eviction counters after reading
+ */
+export const getCacheStats = async(isReset = false): Promise<CacheStats> => {
+  return LyricModule.getCacheStats(isReset)
+}
+
+/**
+ * start or stop counting the desktop lyric frames and wakeups
+ * @param isEnabled count frames
+ */
+export const setFrameStatsEnabled = async(isEnabled: boolean): Promise<void> => {
+  return LyricModule.setFrameStatsEnabled(isEnabled)
+}
+
+export interface FrameStats {
+  wakeupCount: number
+  frameCount: number
+  averageFrameIntervalNs: number
+  maxFrameIntervalNs: number
+  drawCount: number
+  averageDrawTimeNs: number
+  maxDrawTimeNs: number
+  /** draws of a new overlay or a new lyric */
+  firstDrawCount: number
+  averageFirstDrawTimeNs: number
+  maxFirstDrawTimeNs: number
+  /** window layout changes, changes of the same frame share one updateViewLayout */
+  layoutRequestCount: number
+  /** updateViewLayout calls sent to the window manager */
+  layoutUpdateCount: number
+  /** times the overlay window was removed and added again */
+  overlayRebuildCount: number
+  elapsedTimeMs: number
+  layoutCacheHitCount: number
+  layoutCacheMissCount: number
+}
+/**
+ * get the desktop lyric frame statistics
+ * @param isReset reset the statistics after reading
+ */
+export const getFrameStats = async(isReset = false): Promise<FrameStats> => {
+  return LyricModule.getFrameStats(isReset)
+}
+
 export const checkOverlayPermission = async(): Promise<void> => {
   return LyricModule.checkOverlayPermission()
 }
@@ -229,14 +366,43 @@ export const onPositionChange = (handler: (position: { x: number, y: number }) =
   }
 }
 
-export const onLyricLinePlay = (handler: (lineInfo: { text: string, extendedLyrics: string[] }) => void): () => void => {
+interface LyricLineInfo {
+  text: string
+  extendedLyrics: string[]
+}
+interface LyricLinePlayEvent extends LyricLineInfo {
+  lines?: Array<LyricLineInfo & { time: number, delay: number }>
+}
+export const onLyricLinePlay = (handler: (lineInfo: LyricLineInfo) => void): () => void => {
   // eslint-disable-next-line @typescript-eslint/no-unsafe-argument
   const eventEmitter = new NativeEventEmitter(LyricModule)
+  let timeouts: Array<ReturnType<typeof setTimeout>> = []
+  let lastLine = ''
+  const clearTimeouts = () => {
+    for (const timeout of timeouts) clearTimeout(timeout)
+    timeouts = []
+  }
+  // the last line of a batch is sent again by the next event
+  const handleLine = ({ text, extendedLyrics }: LyricLineInfo) => {
+    const line = `${text}\n${extendedLyrics.join('\n')}`
+    if (line === lastLine) return
+    lastLine = line
+    handler({ text, extendedLyrics })
+  }
   const eventListener = eventEmitter.addListener('lyric-line-play', event => {
-    handler(event as { text: string, extendedLyrics: string[] })
+    const { lines, ...info } = event as LyricLinePlayEvent
+    clearTimeouts()
+    handleLine(info)
+    if (!lines) return
+    for (const line of lines) {
+      timeouts.push(setTimeout(() => {
+        handleLine(line)
+      }, line.delay))
+    }
   })
 
   return () => {
+    clearTimeouts()
     eventListener.remove()
   }
 }
@@ -2,9 +2,14 @@ import { NativeEventEmitter, NativeModules } from 'react-native'
 
 const { UserApiModule } = NativeModules
 
-let loadScriptInfo: LX.UserApi.UserApiInfo | null = null
+// info of the loaded scripts, a loaded script keeps running until it is unloaded or evicted
+const loadScriptInfos = new Map<string, LX.UserApi.UserApiInfo>()
+/**
+ * load the script of a source, the runtime of an already loaded script is reused
+ */
 export const loadScript = (info: LX.UserApi.UserApiInfo & { script: string }) => {
-  loadScriptInfo = info
+  const { script, ...scriptInfo } = info
+  loadScriptInfos.set(info.id, scriptInfo)
   UserApiModule.loadScript({
     id: info.id,
     name: info.name,
@@ -12,7 +17,7 @@ export const loadScript = (info: LX.UserApi.UserApiInfo & { script: string }) =>
     version: info.version ?? '',
     author: info.author ?? '',
     homepage: info.homepage ?? '',
-    script: info.script,
+    script,
   })
 }
 
@@ -30,8 +35,8 @@ export interface SendActions {
   request: LX.UserApi.UserApiRequestParams
   response: SendResponseParams
 }
-export const sendAction = <T extends keyof SendActions>(action: T, data: SendActions[T]) => {
-  UserApiModule.sendAction(action, JSON.stringify(data))
+export const sendAction = <T extends keyof SendActions>(id: string, action: T, data: SendActions[T]) => {
+  UserApiModule.sendAction(id, action, JSON.stringify(data))
 }
 
 // export const clearAppCache = CacheModule.clearAppCache as () => Promise<void>
@@ -56,11 +61,13 @@ export interface UpdateInfoParams {
 export interface RequestParams {
   requestKey: string
   url: string
+  // prepared by the user api preload script
   options: {
     method: string
-    data: any
+    headers: Record<string, string>
+    body: string | null
+    formData: Record<string, string> | null
     timeout: number
-    headers: any
     binary: boolean
   }
 }
@@ -74,13 +81,14 @@ export interface Actions {
   showUpdateAlert: UpdateInfoParams
   log: string
 }
-export type ActionsEvent = { [K in keyof Actions]: { action: K, data: Actions[K] } }[keyof Actions]
+export type ActionsEvent = { [K in keyof Actions]: { id: string, action: K, data: Actions[K] } }[keyof Actions]
 
 export const onScriptAction = (handler: (event: ActionsEvent) => void): () => void => {
   // eslint-disable-next-line @typescript-eslint/no-unsafe-argument
   const eventEmitter = new NativeEventEmitter(UserApiModule)
   const eventListener = eventEmitter.addListener('api-action', event => {
     if (event.data) event.data = JSON.parse(event.data as string)
+    const loadScriptInfo = loadScriptInfos.get(event.id)
     if (event.action == 'init') {
       if (event.data.info) event.data.info = { ...loadScriptInfo, ...event.data.info }
       else event.data.info = { ...loadScriptInfo }
@@ -95,6 +103,43 @@ export const onScriptAction = (handler: (event: ActionsEvent) => void): () => vo
   }
 }
 
+export interface ScriptCacheStats {
+  /** scripts run from the cached bytecode */
+  hitCount: number
+  /** scripts compiled from source */
+  missCount: number
+  /** unreadable cache files that were deleted */
+  errorCount: number
+  averageHitLoadTimeNs: number
+  averageMissLoadTimeNs: number
+}
+/**
+ * get the script bytecode cache statistics, load times of the preload script and the source scripts
+ * @param isReset reset the statistics after reading
+ */
+export const getScriptCacheStats = async(isReset = false): Promise<ScriptCacheStats> => {
+  return UserApiModule.getScriptCacheStats(isReset)
+}
+
+/**
+ * run the http requests of the scripts natively instead of through the RN request
+ */
+export const setNativeRequestEnabled = (isEnabled: boolean) => {
+  UserApiModule.setNativeRequestEnabled(isEnabled)
+}
+
+/**
+ * destroy the runtime of a source
+ */
+export const unloadScript = (id: string) => {
+  loadScriptInfos.delete(id)
+  UserApiModule.unloadScript(id)
+}
+
+/**
+ * destroy the runtimes of all sources
+ */
 export const destroy = () => {
+  loadScriptInfos.clear()
   UserApiModule.destroy()
 }